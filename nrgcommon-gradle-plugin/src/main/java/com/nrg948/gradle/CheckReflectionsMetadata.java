@@ -0,0 +1,135 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.gradle;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.serializers.XmlSerializer;
+
+/**
+ * Verifies that the Reflections metadata packaged in the robot JAR file matches the annotations in
+ * the robot program. The build fails if the metadata is missing or stale.
+ *
+ * <p>The robot program classes are scanned from the JAR file itself rather than from the compiler
+ * output used to generate the metadata. This detects a JAR file whose metadata does not describe
+ * the classes packaged with it, such as one containing a stale metadata file copied from the
+ * resources or left by an earlier build. Like the metadata, the scan only covers the robot program
+ * packages and the NRG Common Library package, so the other libraries merged into the JAR file are
+ * not compared.
+ */
+public abstract class CheckReflectionsMetadata extends DefaultTask {
+  /** Constructs an instance of this class. */
+  public CheckReflectionsMetadata() {}
+
+  /**
+   * The robot JAR file.
+   *
+   * @return The JAR file.
+   */
+  @InputFile
+  @PathSensitive(PathSensitivity.NONE)
+  public abstract RegularFileProperty getArchiveFile();
+
+  /**
+   * The robot program runtime classpath.
+   *
+   * @return The runtime classpath.
+   */
+  @Classpath
+  public abstract ConfigurableFileCollection getRuntimeClasspath();
+
+  /**
+   * The robot program packages to scan.
+   *
+   * @return The packages to scan.
+   */
+  @Input
+  public abstract ListProperty<String> getPackages();
+
+  /**
+   * The path of the metadata file in the JAR file.
+   *
+   * @return The metadata file path.
+   */
+  @Input
+  public abstract Property<String> getMetadataPath();
+
+  /** Compares the packaged metadata with a scan of the classes packaged in the robot JAR file. */
+  @TaskAction
+  public void check() {
+    Store packaged = readPackagedMetadata();
+    Store current =
+        MetadataScanner.scan(
+                List.of(getArchiveFile().get().getAsFile()),
+                getRuntimeClasspath().getFiles(),
+                getPackages().get())
+            .getStore();
+
+    if (!packaged.equals(current)) {
+      throw new GradleException(
+          "The Reflections metadata in "
+              + getArchiveFile().get().getAsFile().getName()
+              + " is stale. Run a clean build to regenerate it.");
+    }
+  }
+
+  /** Reads the metadata packaged in the robot JAR file. */
+  private Store readPackagedMetadata() {
+    String metadataPath = getMetadataPath().get();
+
+    try (JarFile jar = new JarFile(getArchiveFile().get().getAsFile())) {
+      JarEntry entry = jar.getJarEntry(metadataPath);
+
+      if (entry == null) {
+        throw new GradleException(
+            "The robot JAR file does not contain the Reflections metadata " + metadataPath);
+      }
+
+      try (InputStream in = jar.getInputStream(entry)) {
+        Reflections reflections = new XmlSerializer().read(in);
+
+        return reflections.getStore();
+      }
+    } catch (IOException e) {
+      throw new GradleException("Failed to read the Reflections metadata " + metadataPath, e);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.gradle;
+
+import java.io.File;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Classpath;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.TaskAction;
+import org.reflections.Reflections;
+import org.reflections.serializers.XmlSerializer;
+
+/**
+ * Generates the Reflections metadata consumed by the NRG Common Library to find annotations at
+ * runtime.
+ */
+public abstract class GenerateReflectionsMetadata extends DefaultTask {
+  /** Constructs an instance of this class. */
+  public GenerateReflectionsMetadata() {}
+
+  /**
+   * The directories containing the robot program classes.
+   *
+   * @return The classes directories.
+   */
+  @Classpath
+  public abstract ConfigurableFileCollection getClassesDirs();
+
+  /**
+   * The robot program runtime classpath.
+   *
+   * @return The runtime classpath.
+   */
+  @Classpath
+  public abstract ConfigurableFileCollection getRuntimeClasspath();
+
+  /**
+   * The robot program packages to scan.
+   *
+   * @return The packages to scan.
+   */
+  @Input
+  public abstract ListProperty<String> getPackages();
+
+  /**
+   * The path of the metadata file relative to the output directory.
+   *
+   * @return The metadata file path.
+   */
+  @Input
+  public abstract Property<String> getMetadataPath();
+
+  /**
+   * The directory to write the metadata to. Its contents are packaged in the robot JAR file.
+   *
+   * @return The output directory.
+   */
+  @OutputDirectory
+  public abstract DirectoryProperty getOutputDirectory();
+
+  /** Scans the robot program and writes the metadata file. */
+  @TaskAction
+  public void generate() {
+    Reflections reflections =
+        MetadataScanner.scan(
+            getClassesDirs().getFiles(), getRuntimeClasspath().getFiles(), getPackages().get());
+    File metadataFile = getOutputDirectory().file(getMetadataPath()).get().getAsFile();
+
+    new XmlSerializer().save(reflections, metadataFile.getPath());
+  }
+}
@@ -0,0 +1,101 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.gradle;
+
+import static org.reflections.scanners.Scanners.FieldsAnnotated;
+import static org.reflections.scanners.Scanners.MethodsAnnotated;
+import static org.reflections.scanners.Scanners.SubTypes;
+import static org.reflections.scanners.Scanners.TypesAnnotated;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import org.gradle.api.GradleException;
+import org.reflections.Reflections;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
+
+/** Scans the robot program for annotations implemented by the NRG Common Library. */
+final class MetadataScanner {
+  /** The NRG Common Library package. */
+  private static final String LIBRARY_PACKAGE = "com.nrg948";
+
+  /* Disallow instantiation */
+  private MetadataScanner() {}
+
+  /**
+   * Scans the robot program and the NRG Common Library for annotated elements.
+   *
+   * <p>Only the classes in the robot program packages and the NRG Common Library package are
+   * scanned. The classpath entries added for a package contain other classes too, such as the
+   * WPILib and vendor library classes merged into the robot JAR file, which must not appear in the
+   * metadata.
+   *
+   * @param classesDirs The directories or JAR files containing the robot program classes.
+   * @param classpath The robot program runtime classpath.
+   * @param packages The robot program packages to scan.
+   * @return The annotation metadata.
+   */
+  static Reflections scan(
+      Iterable<File> classesDirs, Iterable<File> classpath, List<String> packages) {
+    try (URLClassLoader projectLoader = new URLClassLoader(toUrls(classesDirs), null);
+        URLClassLoader classpathLoader = new URLClassLoader(toUrls(classpath), null)) {
+      ConfigurationBuilder configuration = new ConfigurationBuilder();
+      FilterBuilder filter = new FilterBuilder().includePackage(LIBRARY_PACKAGE);
+
+      for (String pkg : packages) {
+        configuration.forPackage(pkg, projectLoader);
+        filter.includePackage(pkg);
+      }
+
+      configuration
+          .forPackage(LIBRARY_PACKAGE, classpathLoader)
+          .filterInputsBy(filter)
+          .setScanners(FieldsAnnotated, MethodsAnnotated, SubTypes, TypesAnnotated);
+
+      return new Reflections(configuration);
+    } catch (IOException e) {
+      throw new GradleException("Failed to scan for NRG Common Library annotations", e);
+    }
+  }
+
+  /** Converts a collection of files to an array of URLs. */
+  private static URL[] toUrls(Iterable<File> files) {
+    List<URL> urls = new ArrayList<>();
+
+    try {
+      for (File file : files) {
+        urls.add(file.toURI().toURL());
+      }
+    } catch (MalformedURLException e) {
+      throw new GradleException("Invalid classpath entry", e);
+    }
+
+    return urls.toArray(new URL[0]);
+  }
+}
@@ -0,0 +1,138 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.gradle;
+
+import java.util.List;
+import org.gradle.api.Plugin;
+import org.gradle.api.Project;
+import org.gradle.api.plugins.BasePluginExtension;
+import org.gradle.api.plugins.JavaPlugin;
+import org.gradle.api.plugins.JavaPluginExtension;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.SourceSet;
+import org.gradle.api.tasks.TaskProvider;
+import org.gradle.jvm.tasks.Jar;
+import org.gradle.language.base.plugins.LifecycleBasePlugin;
+
+/**
+ * A Gradle plugin that generates the Reflections metadata consumed by the NRG Common Library when
+ * the robot program is built.
+ *
+ * <p>Apply the plugin in the robot project's <code>build.gradle</code> file. The metadata is
+ * generated by the <code>generateReflectionsMetadata</code> task and packaged in the robot JAR
+ * file. The <code>checkReflectionsMetadata</code> task, which runs as part of <code>check</code>,
+ * fails the build if the packaged metadata is stale.
+ *
+ * <pre>
+ * <code>
+ * plugins {
+ *     id 'com.nrg948.nrgcommon' version '2024.3.2-SNAPSHOT'
+ * }
+ * </code>
+ * </pre>
+ */
+public class NrgCommonPlugin implements Plugin<Project> {
+  /** The name of the task generating the Reflections metadata. */
+  public static final String GENERATE_TASK_NAME = "generateReflectionsMetadata";
+
+  /** The name of the task checking the packaged Reflections metadata. */
+  public static final String CHECK_TASK_NAME = "checkReflectionsMetadata";
+
+  /** Constructs an instance of this class. */
+  public NrgCommonPlugin() {}
+
+  @Override
+  public void apply(Project project) {
+    NrgCommonExtension extension =
+        project.getExtensions().create("nrgcommon", NrgCommonExtension.class);
+
+    extension.getPackages().convention(List.of("frc.robot"));
+
+    project.getPlugins().withType(JavaPlugin.class, plugin -> configure(project, extension));
+  }
+
+  /**
+   * Adds the metadata tasks to a Java project.
+   *
+   * @param project The robot project.
+   * @param extension The <code>nrgcommon</code> extension.
+   */
+  private static void configure(Project project, NrgCommonExtension extension) {
+    SourceSet main =
+        project
+            .getExtensions()
+            .getByType(JavaPluginExtension.class)
+            .getSourceSets()
+            .getByName(SourceSet.MAIN_SOURCE_SET_NAME);
+    Provider<String> metadataPath =
+        project
+            .getExtensions()
+            .getByType(BasePluginExtension.class)
+            .getArchivesName()
+            .map(name -> "META-INF/reflections/" + name + "-reflections.xml");
+
+    TaskProvider<GenerateReflectionsMetadata> generate =
+        project
+            .getTasks()
+            .register(
+                GENERATE_TASK_NAME,
+                GenerateReflectionsMetadata.class,
+                task -> {
+                  task.setGroup(LifecycleBasePlugin.BUILD_GROUP);
+                  task.setDescription(
+                      "Generates the metadata used by the NRG Common Library to find annotations.");
+                  task.getClassesDirs().from(main.getOutput().getClassesDirs());
+                  task.getRuntimeClasspath().from(main.getRuntimeClasspath());
+                  task.getPackages().set(extension.getPackages());
+                  task.getMetadataPath().set(metadataPath);
+                  task.getOutputDirectory()
+                      .set(project.getLayout().getBuildDirectory().dir("generated/nrgcommon"));
+                });
+
+    TaskProvider<Jar> jar = project.getTasks().named(JavaPlugin.JAR_TASK_NAME, Jar.class);
+
+    jar.configure(task -> task.from(generate));
+
+    TaskProvider<CheckReflectionsMetadata> check =
+        project
+            .getTasks()
+            .register(
+                CHECK_TASK_NAME,
+                CheckReflectionsMetadata.class,
+                task -> {
+                  task.setGroup(LifecycleBasePlugin.VERIFICATION_GROUP);
+                  task.setDescription(
+                      "Fails if the NRG Common Library metadata in the robot JAR file is stale.");
+                  task.getArchiveFile().set(jar.flatMap(Jar::getArchiveFile));
+                  task.getRuntimeClasspath().from(main.getRuntimeClasspath());
+                  task.getPackages().set(extension.getPackages());
+                  task.getMetadataPath().set(metadataPath);
+                });
+
+    project
+        .getTasks()
+        .named(LifecycleBasePlugin.CHECK_TASK_NAME)
+        .configure(task -> task.dependsOn(check));
+  }
+}
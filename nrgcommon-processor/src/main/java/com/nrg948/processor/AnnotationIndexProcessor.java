@@ -0,0 +1,312 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+/**
+ * An annotation processor that generates a static index of the elements annotated with the NRG
+ * Common Library annotations.
+ *
+ * <p>The index is written to a resource in the {@value #INDEX_DIRECTORY} directory of the class
+ * output and is read by <code>com.nrg948.annotations.Annotations</code> at startup in place of
+ * scanning the classpath. The resource is named after the common package of the compiled classes
+ * (e.g. <code>META-INF/nrgcommon/frc.robot.idx</code>), so that the indexes of the library and of
+ * the robot program both survive when they are merged into a single robot JAR.
+ *
+ * <p>Each line of the index is a tab-separated record. A record starting with {@value
+ * #PACKAGE_RECORD} names a package that was compiled with this processor. All other records
+ * consist of the name of the Reflections index, the key and the value in the same form produced by
+ * the Reflections library scanners.
+ *
+ * <p>To enable the processor in a robot project, add the following to the <code>dependencies
+ * </code> section of <code>build.gradle</code>.
+ *
+ * <pre>
+ * <code>
+ * annotationProcessor 'com.nrg948:nrgcommon-processor:2024.3.2-SNAPSHOT'
+ * </code>
+ * </pre>
+ */
+@SupportedAnnotationTypes({
+  AnnotationIndexProcessor.ROBOT_PREFERENCES_VALUE,
+  AnnotationIndexProcessor.ROBOT_PREFERENCES_LAYOUT,
+  AnnotationIndexProcessor.AUTONOMOUS_COMMAND,
+  AnnotationIndexProcessor.AUTONOMOUS_COMMAND_METHOD,
+  AnnotationIndexProcessor.AUTONOMOUS_COMMAND_GENERATOR
+})
+public class AnnotationIndexProcessor extends AbstractProcessor {
+  /** The directory of the resources containing the annotation indexes. */
+  public static final String INDEX_DIRECTORY = "META-INF/nrgcommon/";
+
+  /** The file extension of the resources containing the annotation indexes. */
+  public static final String INDEX_EXTENSION = ".idx";
+
+  /** The name of the index of classes that have no common package. */
+  private static final String UNNAMED_INDEX = "unnamed";
+
+  /** The record type identifying a package compiled with this processor. */
+  public static final String PACKAGE_RECORD = "@package";
+
+  static final String ROBOT_PREFERENCES_VALUE = "com.nrg948.preferences.RobotPreferencesValue";
+  static final String ROBOT_PREFERENCES_LAYOUT = "com.nrg948.preferences.RobotPreferencesLayout";
+  static final String AUTONOMOUS_COMMAND = "com.nrg948.autonomous.AutonomousCommand";
+  static final String AUTONOMOUS_COMMAND_METHOD = "com.nrg948.autonomous.AutonomousCommandMethod";
+  static final String AUTONOMOUS_COMMAND_GENERATOR =
+      "com.nrg948.autonomous.AutonomousCommandGenerator";
+
+  private static final String FIELDS_ANNOTATED = "FieldsAnnotated";
+  private static final String METHODS_ANNOTATED = "MethodsAnnotated";
+  private static final String TYPES_ANNOTATED = "TypesAnnotated";
+  private static final String SUB_TYPES = "SubTypes";
+
+  private final Set<String> packages = new TreeSet<>();
+  private final Set<String> records = new TreeSet<>();
+
+  /** Constructs an instance of this class. */
+  public AnnotationIndexProcessor() {}
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    Elements elements = processingEnv.getElementUtils();
+
+    for (Element root : roundEnv.getRootElements()) {
+      packages.add(elements.getPackageOf(root).getQualifiedName().toString());
+    }
+
+    for (TypeElement annotation : annotations) {
+      String key = elements.getBinaryName(annotation).toString();
+
+      for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+        addElement(key, element);
+      }
+    }
+
+    if (roundEnv.processingOver()) {
+      writeIndex();
+    }
+
+    // Do not claim the annotations so that other processors may also handle them.
+    return false;
+  }
+
+  /**
+   * Adds the records for an annotated element to the index.
+   *
+   * @param key The binary name of the annotation.
+   * @param element The annotated element.
+   */
+  private void addElement(String key, Element element) {
+    switch (element.getKind()) {
+      case FIELD:
+        addRecord(FIELDS_ANNOTATED, key, fieldName((VariableElement) element));
+        break;
+
+      case METHOD:
+        addRecord(METHODS_ANNOTATED, key, methodName((ExecutableElement) element));
+        break;
+
+      case CLASS:
+      case INTERFACE:
+      case ENUM:
+      case RECORD:
+        TypeElement type = (TypeElement) element;
+
+        addRecord(TYPES_ANNOTATED, key, binaryName(type));
+        addSuperTypes(type);
+        break;
+
+      default:
+        processingEnv
+            .getMessager()
+            .printMessage(
+                Diagnostic.Kind.WARNING,
+                "Element kind " + element.getKind() + " is not supported by the NRG Common Library",
+                element);
+        break;
+    }
+  }
+
+  /**
+   * Adds the type hierarchy edges for an annotated type to the index so that subtype queries
+   * continue to work against the generated index.
+   *
+   * @param type The annotated type.
+   */
+  private void addSuperTypes(TypeElement type) {
+    Types types = processingEnv.getTypeUtils();
+
+    while (type != null) {
+      String name = binaryName(type);
+
+      for (TypeMirror iface : type.getInterfaces()) {
+        addRecord(SUB_TYPES, binaryName((TypeElement) types.asElement(iface)), name);
+      }
+
+      TypeMirror superclass = type.getSuperclass();
+
+      if (superclass.getKind() != TypeKind.DECLARED) {
+        break;
+      }
+
+      TypeElement superType = (TypeElement) types.asElement(superclass);
+      String superName = binaryName(superType);
+
+      if (superName.equals(Object.class.getName())) {
+        break;
+      }
+
+      addRecord(SUB_TYPES, superName, name);
+      type = superType;
+    }
+  }
+
+  /** Adds a tab-separated record to the index. */
+  private void addRecord(String index, String key, String value) {
+    records.add(index + "\t" + key + "\t" + value);
+  }
+
+  /** Writes the index to the class output directory. */
+  private void writeIndex() {
+    if (records.isEmpty() && packages.isEmpty()) {
+      return;
+    }
+
+    try {
+      FileObject resource =
+          processingEnv
+              .getFiler()
+              .createResource(
+                  StandardLocation.CLASS_OUTPUT,
+                  "",
+                  INDEX_DIRECTORY + indexName() + INDEX_EXTENSION);
+
+      try (PrintWriter writer = new PrintWriter(resource.openWriter())) {
+        for (String pkg : packages) {
+          writer.println(PACKAGE_RECORD + "\t" + pkg);
+        }
+
+        for (String record : records) {
+          writer.println(record);
+        }
+      }
+    } catch (IOException e) {
+      processingEnv
+          .getMessager()
+          .printMessage(
+              Diagnostic.Kind.ERROR, "Failed to write annotation index: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the name of the index, which is the longest package containing all the compiled
+   * packages.
+   */
+  private String indexName() {
+    String common = null;
+
+    for (String pkg : packages) {
+      if (common == null) {
+        common = pkg;
+      } else {
+        while (!common.isEmpty() && !pkg.equals(common) && !pkg.startsWith(common + ".")) {
+          int dot = common.lastIndexOf('.');
+
+          common = dot < 0 ? "" : common.substring(0, dot);
+        }
+      }
+    }
+
+    return common == null || common.isEmpty() ? UNNAMED_INDEX : common;
+  }
+
+  /** Returns the binary name of a type (e.g. <code>frc.robot.Outer$Inner</code>). */
+  private String binaryName(TypeElement type) {
+    return processingEnv.getElementUtils().getBinaryName(type).toString();
+  }
+
+  /** Returns the name of a field in the form produced by the Reflections library. */
+  private String fieldName(VariableElement field) {
+    return binaryName((TypeElement) field.getEnclosingElement()) + "." + field.getSimpleName();
+  }
+
+  /** Returns the name of a method in the form produced by the Reflections library. */
+  private String methodName(ExecutableElement method) {
+    List<String> parameters =
+        method.getParameters().stream()
+            .map(p -> typeName(p.asType()))
+            .collect(Collectors.toList());
+
+    return binaryName((TypeElement) method.getEnclosingElement())
+        + "."
+        + method.getSimpleName()
+        + "("
+        + String.join(", ", parameters)
+        + ")";
+  }
+
+  /** Returns the name of the erasure of a type as it appears in a Reflections method name. */
+  private String typeName(TypeMirror type) {
+    Types types = processingEnv.getTypeUtils();
+    TypeMirror erasure = types.erasure(type);
+
+    switch (erasure.getKind()) {
+      case ARRAY:
+        return typeName(((ArrayType) erasure).getComponentType()) + "[]";
+
+      case DECLARED:
+        return binaryName((TypeElement) ((DeclaredType) erasure).asElement());
+
+      default:
+        return erasure.toString();
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.annotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.serializers.XmlSerializer;
+
+/**
+ * Compares the time to load the Reflections metadata at startup from the XML and binary formats.
+ *
+ * <p>Each measurement is a single cold load in a fresh fork to approximate robot startup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 10)
+@Fork(5)
+public class MetadataLoadBenchmark {
+  /** The number of classes in the synthetic metadata. */
+  @Param({"500", "5000"})
+  public int classCount;
+
+  private byte[] xmlMetadata;
+  private byte[] binaryMetadata;
+
+  /** Generates synthetic metadata resembling a robot program and its vendor libraries. */
+  @Setup
+  public void setup() throws IOException {
+    Store store = new Store();
+
+    for (int i = 0; i < classCount; i++) {
+      String className = "com.vendor.pkg" + (i % 50) + ".Class" + i;
+
+      store
+          .computeIfAbsent("SubTypes", k -> new HashMap<>())
+          .computeIfAbsent("com.vendor.Base" + (i % 20), k -> new HashSet<>())
+          .add(className);
+
+      if (i % 25 == 0) {
+        store
+            .computeIfAbsent("FieldsAnnotated", k -> new HashMap<>())
+            .computeIfAbsent("com.nrg948.preferences.RobotPreferencesValue", k -> new HashSet<>())
+            .add(className + ".kValue");
+      }
+
+      if (i % 100 == 0) {
+        store
+            .computeIfAbsent("TypesAnnotated", k -> new HashMap<>())
+            .computeIfAbsent("com.nrg948.preferences.RobotPreferencesLayout", k -> new HashSet<>())
+            .add(className);
+      }
+    }
+
+    File xmlFile = File.createTempFile("benchmark", "-reflections.xml");
+
+    try {
+      new XmlSerializer().save(new Reflections(store), xmlFile.getPath());
+      xmlMetadata = Files.readAllBytes(xmlFile.toPath());
+    } finally {
+      xmlFile.delete();
+    }
+
+    binaryMetadata = new BinarySerializer().toBytes(store);
+  }
+
+  /** Loads the metadata from the XML format. */
+  @Benchmark
+  public Store loadXml() {
+    return new XmlSerializer().read(new ByteArrayInputStream(xmlMetadata)).getStore();
+  }
+
+  /** Loads the metadata from the binary format through a direct buffer. */
+  @Benchmark
+  public Store loadBinary() throws IOException {
+    ByteBuffer buffer =
+        BinarySerializer.toByteBuffer(
+            new ByteArrayInputStream(binaryMetadata), binaryMetadata.length);
+
+    return new BinarySerializer().readStore(buffer);
+  }
+}
@@ -0,0 +1,147 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import com.nrg948.preferences.RobotPreferences.BooleanValue;
+import com.nrg948.preferences.RobotPreferences.DoubleValue;
+import com.nrg948.preferences.RobotPreferences.EnumValue;
+import com.nrg948.preferences.RobotPreferences.StringValue;
+import edu.wpi.first.hal.HAL;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of reading and writing preferences values through the {@link
+ * edu.wpi.first.wpilibj.Preferences} store and through their cached values.
+ *
+ * <p>Run with <code>-Pjmh.profilers=gc</code> to report the bytes allocated per operation. With
+ * cached reads enabled, <code>gc.alloc.rate.norm</code> is expected to be zero for every benchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PreferencesValueBenchmark {
+  /** The enum type of the benchmarked {@link EnumValue}. */
+  public enum Gear {
+    /** The low gear. */
+    LOW,
+    /** The high gear. */
+    HIGH
+  }
+
+  /** Whether reads are served from cached values. */
+  @Param({"false", "true"})
+  public boolean cachedReads;
+
+  private StringValue stringValue;
+  private BooleanValue booleanValue;
+  private DoubleValue doubleValue;
+  private EnumValue<Gear> enumValue;
+  private boolean toggle;
+
+  /** Initializes the HAL and creates the preferences values. */
+  @Setup
+  public void setup() {
+    HAL.initialize(500, 0);
+    RobotPreferences.setCachedReads(cachedReads);
+
+    stringValue = new StringValue("Benchmark", "String", "default");
+    booleanValue = new BooleanValue("Benchmark", "Boolean", false);
+    doubleValue = new DoubleValue("Benchmark", "Double", 1.0);
+    enumValue = new EnumValue<>("Benchmark", "Enum", Gear.LOW);
+
+    stringValue.setValue("value");
+    booleanValue.setValue(true);
+    doubleValue.setValue(2.0);
+    enumValue.setValue(Gear.HIGH);
+  }
+
+  /** Restores the default cached reads setting. */
+  @TearDown
+  public void tearDown() {
+    RobotPreferences.setCachedReads(false);
+  }
+
+  /** Reads a string value. */
+  @Benchmark
+  public String getString() {
+    return stringValue.getValue();
+  }
+
+  /** Reads a Boolean value. */
+  @Benchmark
+  public boolean getBoolean() {
+    return booleanValue.getValue();
+  }
+
+  /** Reads a floating-point value. */
+  @Benchmark
+  public double getDouble() {
+    return doubleValue.getValue();
+  }
+
+  /** Reads an enum value. */
+  @Benchmark
+  public Gear getEnum() {
+    return enumValue.getValue();
+  }
+
+  /** Writes a string value. */
+  @Benchmark
+  public void setString() {
+    stringValue.setValue((toggle = !toggle) ? "value" : "other");
+  }
+
+  /** Writes a Boolean value. */
+  @Benchmark
+  public void setBoolean() {
+    booleanValue.setValue(toggle = !toggle);
+  }
+
+  /** Writes a floating-point value. */
+  @Benchmark
+  public void setDouble() {
+    doubleValue.setValue((toggle = !toggle) ? 2.0 : 3.0);
+  }
+
+  /** Writes an enum value. */
+  @Benchmark
+  public void setEnum() {
+    enumValue.setValue((toggle = !toggle) ? Gear.HIGH : Gear.LOW);
+  }
+}
@@ -24,10 +24,27 @@
 package com.nrg948;
 
 import com.nrg948.annotations.Annotations;
+import com.nrg948.autonomous.AutonomousCommand;
+import com.nrg948.autonomous.AutonomousCommandGenerator;
+import com.nrg948.autonomous.AutonomousCommandMethod;
 import com.nrg948.preferences.RobotPreferences;
+import com.nrg948.preferences.RobotPreferencesLayout;
+import com.nrg948.preferences.RobotPreferencesValue;
+import java.lang.annotation.Annotation;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /** A class to initialize the NRG Common Library. */
 public final class Common {
+  /** The annotations implemented by the NRG Common Library. */
+  private static final Set<Class<? extends Annotation>> ANNOTATIONS =
+      Set.of(
+          RobotPreferencesValue.class,
+          RobotPreferencesLayout.class,
+          AutonomousCommand.class,
+          AutonomousCommandMethod.class,
+          AutonomousCommandGenerator.class);
+
   /* Disallow instantiation */
   private Common() {}
 
@@ -37,10 +54,41 @@ public final class Common {
    * <p>This method must be called in the <code>Robot.initRobot()</code> method before the <code>
    * RobotContainer</code> is created.
    *
+   * <p>The time spent in each phase of the initialization is recorded in the {@link
+   * StartupReport}.
+   *
    * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
    */
   public static void init(String... pkgs) {
-    Annotations.init(pkgs);
-    RobotPreferences.init();
+    StartupReport.get().clear();
+    StartupReport.time(
+        "Common.init",
+        () -> {
+          Annotations.init(ANNOTATIONS, pkgs);
+          RobotPreferences.init();
+        });
+  }
+
+  /**
+   * Initializes the NRG Common library on a background daemon thread.
+   *
+   * <p>This method may be called in place of {@link #init(String...)} to overlap the loading of
+   * the annotation metadata with the construction of the robot subsystems. Methods that require
+   * the annotation metadata block until it is ready.
+   *
+   * <p>The robot preferences are not initialized on the background thread, since initialization
+   * may rewrite the preferences store while the robot program is using it. Instead, they are
+   * initialized on the robot thread by the first call that needs them, as described by {@link
+   * RobotPreferences#deferInit()}. Until then, preferences values are read from the preferences
+   * store as is.
+   *
+   * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
+   * @return A future that completes when the annotation metadata is ready.
+   */
+  public static CompletableFuture<Void> initAsync(String... pkgs) {
+    StartupReport.get().clear();
+    RobotPreferences.deferInit();
+
+    return Annotations.initAsync(ANNOTATIONS, pkgs);
   }
 }
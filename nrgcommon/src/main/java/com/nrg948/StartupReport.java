@@ -0,0 +1,250 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * A report of the time spent and memory allocated in each phase of the NRG Common Library
+ * startup.
+ *
+ * <p>The report is filled in by {@link Common#init(String...)} and the initialization methods it
+ * calls. It can be queried by the robot program, printed or published to NetworkTables to detect
+ * regressions in the robot's boot time.
+ *
+ * <pre>
+ * <code>
+ * Common.init("frc.robot");
+ * StartupReport.get().publish();
+ * </code>
+ * </pre>
+ */
+public final class StartupReport {
+  /** The name of the NetworkTables table the report is published to. */
+  public static final String kTableName = "NRGCommon/StartupReport";
+
+  /** A startup phase. */
+  public static final class Phase {
+    private final String name;
+    private final long startTime;
+    private final long duration;
+    private final long allocatedBytes;
+
+    private Phase(String name, long startTime, long duration, long allocatedBytes) {
+      this.name = name;
+      this.startTime = startTime;
+      this.duration = duration;
+      this.allocatedBytes = allocatedBytes;
+    }
+
+    /**
+     * Returns the name of the phase.
+     *
+     * @return The phase name.
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Returns the time the phase started as returned by {@link System#nanoTime()}.
+     *
+     * @return The start time in nanoseconds.
+     */
+    public long getStartTime() {
+      return startTime;
+    }
+
+    /**
+     * Returns the duration of the phase.
+     *
+     * @return The duration in nanoseconds.
+     */
+    public long getDuration() {
+      return duration;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the thread running the phase. Allocations made by
+     * other threads on behalf of the phase are not included.
+     *
+     * @return The number of bytes allocated, or -1 if allocation measurement is not supported by
+     *     the JVM.
+     */
+    public long getAllocatedBytes() {
+      return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%s: %.3f ms, %d bytes allocated", name, duration / 1e6, allocatedBytes);
+    }
+  }
+
+  private static final StartupReport instance = new StartupReport();
+
+  private static final com.sun.management.ThreadMXBean threadBean = getThreadBean();
+
+  private final List<Phase> phases = new CopyOnWriteArrayList<>();
+
+  /* Disallow instantiation */
+  private StartupReport() {}
+
+  /**
+   * Returns the startup report.
+   *
+   * @return The startup report.
+   */
+  public static StartupReport get() {
+    return instance;
+  }
+
+  /**
+   * Runs and measures a startup phase.
+   *
+   * @param <T> The type of the phase result.
+   * @param name The name of the phase.
+   * @param phase The phase to run.
+   * @return The result of the phase.
+   */
+  public static <T> T time(String name, Supplier<T> phase) {
+    long startAllocated = getAllocatedBytes();
+    long startTime = System.nanoTime();
+
+    try {
+      return phase.get();
+    } finally {
+      long duration = System.nanoTime() - startTime;
+      long endAllocated = getAllocatedBytes();
+
+      instance.phases.add(
+          new Phase(
+              name,
+              startTime,
+              duration,
+              startAllocated < 0 || endAllocated < 0 ? -1 : endAllocated - startAllocated));
+    }
+  }
+
+  /**
+   * Runs and measures a startup phase.
+   *
+   * @param name The name of the phase.
+   * @param phase The phase to run.
+   */
+  public static void time(String name, Runnable phase) {
+    time(
+        name,
+        () -> {
+          phase.run();
+          return null;
+        });
+  }
+
+  /** Removes all phases from the report. */
+  public void clear() {
+    phases.clear();
+  }
+
+  /**
+   * Returns the measured phases in the order they started.
+   *
+   * @return The measured phases.
+   */
+  public List<Phase> getPhases() {
+    return phases.stream()
+        .sorted(Comparator.comparingLong(Phase::getStartTime))
+        .collect(Collectors.toUnmodifiableList());
+  }
+
+  /**
+   * Returns the most recent measurement of the named phase.
+   *
+   * @param name The name of the phase.
+   * @return The phase, or {@link Optional#empty()} if the phase was not measured.
+   */
+  public Optional<Phase> getPhase(String name) {
+    return phases.stream()
+        .filter(p -> p.getName().equals(name))
+        .reduce((first, second) -> second);
+  }
+
+  /** Prints the report to the console. */
+  public void print() {
+    System.out.println("NRG Common Library startup:");
+    getPhases().forEach(p -> System.out.println("  " + p));
+  }
+
+  /** Publishes the report to the {@value #kTableName} NetworkTables table. */
+  public void publish() {
+    publish(NetworkTableInstance.getDefault().getTable(kTableName));
+  }
+
+  /**
+   * Publishes the report to a NetworkTables table. Each phase is published to a subtable
+   * containing its duration in milliseconds and the number of bytes allocated.
+   *
+   * @param table The table to publish the report to.
+   */
+  public void publish(NetworkTable table) {
+    for (Phase phase : phases) {
+      NetworkTable phaseTable = table.getSubTable(phase.getName());
+
+      phaseTable.getEntry("DurationMs").setDouble(phase.getDuration() / 1e6);
+      phaseTable.getEntry("AllocatedBytes").setDouble(phase.getAllocatedBytes());
+    }
+  }
+
+  /** Returns the number of bytes allocated by the current thread, or -1 if not supported. */
+  private static long getAllocatedBytes() {
+    return threadBean != null ? threadBean.getCurrentThreadAllocatedBytes() : -1;
+  }
+
+  /** Returns the thread bean if it supports measuring allocations. */
+  private static com.sun.management.ThreadMXBean getThreadBean() {
+    try {
+      if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+          return bean;
+        }
+      }
+    } catch (LinkageError | SecurityException e) {
+      System.err.println("WARNING: Allocation measurement is not available: " + e.getMessage());
+    }
+
+    return null;
+  }
+}
@@ -0,0 +1,309 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.annotations;
+
+import static org.reflections.scanners.Scanners.FieldsAnnotated;
+import static org.reflections.scanners.Scanners.MethodsAnnotated;
+import static org.reflections.scanners.Scanners.TypesAnnotated;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.FieldInfo;
+import org.reflections.Store;
+import org.reflections.util.JavassistHelper;
+import org.reflections.vfs.Vfs;
+
+/**
+ * Scans class files for elements annotated with a set of annotations, normally those implemented
+ * by the NRG Common Library.
+ *
+ * <p>Unlike the Reflections scanners, which parse every class file and record every type hierarchy
+ * edge, this scanner first checks the constant pool of each class file for the descriptors of the
+ * annotations. Only class files that reference one of the annotations are fully parsed,
+ * and only the annotated elements are recorded. The results are stored in the FieldsAnnotated,
+ * MethodsAnnotated and TypesAnnotated indexes using the same keys and values as the Reflections
+ * scanners.
+ */
+final class AnnotatedClassScanner {
+  private static final int CLASS_FILE_MAGIC = 0xCAFEBABE;
+
+  /** The names of the annotations to scan for. */
+  private final Set<String> annotationNames;
+
+  /** The field descriptors of the annotations as they appear in the constant pool. */
+  private final List<byte[]> annotationDescriptors;
+
+  /** The common prefix of the annotation descriptors. */
+  private final byte[] descriptorPrefix;
+
+  private final List<String> pathPrefixes;
+
+  /**
+   * Constructs a scanner for the specified annotations and packages.
+   *
+   * @param annotationNames The names of the annotations to scan for.
+   * @param pkgs The packages to scan.
+   */
+  AnnotatedClassScanner(Collection<String> annotationNames, String... pkgs) {
+    this.annotationNames = Set.copyOf(annotationNames);
+    this.annotationDescriptors =
+        this.annotationNames.stream()
+            .map(name -> ("L" + name.replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8))
+            .collect(Collectors.toList());
+    this.descriptorPrefix = commonPrefix(annotationDescriptors);
+    this.pathPrefixes =
+        Arrays.stream(pkgs).map(pkg -> pkg.replace('.', '/') + "/").collect(Collectors.toList());
+  }
+
+  /** Returns the longest common prefix of a list of descriptors. */
+  private static byte[] commonPrefix(List<byte[]> descriptors) {
+    if (descriptors.isEmpty()) {
+      return new byte[0];
+    }
+
+    byte[] first = descriptors.get(0);
+    int length = first.length;
+
+    for (byte[] descriptor : descriptors) {
+      length = Math.min(length, descriptor.length);
+
+      int mismatch = Arrays.mismatch(first, 0, length, descriptor, 0, length);
+
+      if (mismatch >= 0) {
+        length = mismatch;
+      }
+    }
+
+    return Arrays.copyOf(first, length);
+  }
+
+  /**
+   * Scans the class files in the specified classpath entries.
+   *
+   * @param urls The URLs of the classpath entries.
+   * @return The store containing the annotated elements.
+   */
+  Store scan(Collection<URL> urls) {
+    Store store = new Store();
+
+    for (URL url : urls) {
+      scan(url, store);
+    }
+
+    return store;
+  }
+
+  /**
+   * Scans the class files in a classpath entry.
+   *
+   * @param url The URL of the classpath entry.
+   * @param store The store to add the annotated elements to.
+   */
+  void scan(URL url, Store store) {
+    try (Vfs.Dir dir = Vfs.fromURL(url)) {
+      for (Vfs.File file : dir.getFiles()) {
+        String path = file.getRelativePath();
+
+        if (path.endsWith(".class") && isInPackage(path)) {
+          byte[] bytes;
+
+          try (InputStream in = file.openInputStream()) {
+            bytes = in.readAllBytes();
+          }
+
+          if (referencesAnnotation(bytes)) {
+            scanClass(new ClassFile(new DataInputStream(new ByteArrayInputStream(bytes))), store);
+          }
+        }
+      }
+    } catch (Exception e) {
+      System.err.println("WARNING: Failed to scan " + url + ": " + e.getMessage());
+    }
+  }
+
+  /** Returns whether a class file path is in one of the scanned packages. */
+  private boolean isInPackage(String path) {
+    for (String prefix : pathPrefixes) {
+      if (path.startsWith(prefix)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns whether the constant pool of a class file references one of the annotations.
+   *
+   * @param bytes The contents of the class file.
+   * @return Whether the class file must be fully parsed. A malformed class file or one using an
+   *     unknown constant pool tag is conservatively reported as a match.
+   */
+  boolean referencesAnnotation(byte[] bytes) {
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+
+    try {
+      if (in.getInt() != CLASS_FILE_MAGIC) {
+        return false;
+      }
+
+      in.getInt(); // minor and major version
+
+      int count = Short.toUnsignedInt(in.getShort());
+
+      for (int i = 1; i < count; i++) {
+        int tag = in.get();
+
+        switch (tag) {
+          case 1: // Utf8
+            int length = Short.toUnsignedInt(in.getShort());
+            int start = in.position();
+
+            if (isAnnotationDescriptor(bytes, start, length)) {
+              return true;
+            }
+
+            in.position(start + length);
+            break;
+
+          case 7: // Class
+          case 8: // String
+          case 16: // MethodType
+          case 19: // Module
+          case 20: // Package
+            in.position(in.position() + 2);
+            break;
+
+          case 15: // MethodHandle
+            in.position(in.position() + 3);
+            break;
+
+          case 3: // Integer
+          case 4: // Float
+          case 9: // Fieldref
+          case 10: // Methodref
+          case 11: // InterfaceMethodref
+          case 12: // NameAndType
+          case 17: // Dynamic
+          case 18: // InvokeDynamic
+            in.position(in.position() + 4);
+            break;
+
+          case 5: // Long
+          case 6: // Double
+            in.position(in.position() + 8);
+            i++; // 8-byte constants take two constant pool entries
+            break;
+
+          default:
+            return true;
+        }
+      }
+    } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+      return true;
+    }
+
+    return false;
+  }
+
+  /** Returns whether a constant pool string is the descriptor of one of the annotations. */
+  private boolean isAnnotationDescriptor(byte[] bytes, int start, int length) {
+    if (annotationDescriptors.isEmpty()
+        || length < descriptorPrefix.length
+        || !Arrays.equals(
+            bytes,
+            start,
+            start + descriptorPrefix.length,
+            descriptorPrefix,
+            0,
+            descriptorPrefix.length)) {
+      return false;
+    }
+
+    for (byte[] descriptor : annotationDescriptors) {
+      if (Arrays.equals(bytes, start, start + length, descriptor, 0, descriptor.length)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Adds the annotated elements of a class to the store.
+   *
+   * @param classFile The parsed class file.
+   * @param store The store to add the annotated elements to.
+   */
+  private void scanClass(ClassFile classFile, Store store) {
+    for (String annotation : JavassistHelper.getAnnotations(classFile::getAttribute)) {
+      add(store, TypesAnnotated.index(), annotation, classFile.getName());
+    }
+
+    for (FieldInfo field : classFile.getFields()) {
+      for (String annotation : JavassistHelper.getAnnotations(field::getAttribute)) {
+        add(
+            store,
+            FieldsAnnotated.index(),
+            annotation,
+            JavassistHelper.fieldName(classFile, field));
+      }
+    }
+
+    JavassistHelper.getMethods(classFile)
+        .forEach(
+            method -> {
+              for (String annotation : JavassistHelper.getAnnotations(method::getAttribute)) {
+                add(
+                    store,
+                    MethodsAnnotated.index(),
+                    annotation,
+                    JavassistHelper.methodName(classFile, method));
+              }
+            });
+  }
+
+  /** Adds an entry to the store if the key is one of the annotations scanned for. */
+  private void add(Store store, String index, String key, String value) {
+    if (annotationNames.contains(key)) {
+      store
+          .computeIfAbsent(index, k -> new HashMap<>())
+          .computeIfAbsent(key, k -> new HashSet<>())
+          .add(value);
+    }
+  }
+}
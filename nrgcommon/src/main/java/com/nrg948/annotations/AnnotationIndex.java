@@ -0,0 +1,223 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.annotations;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.reflections.Reflections;
+import org.reflections.Store;
+
+/**
+ * Reads the static annotation index generated at compile time by the <code>nrgcommon-processor
+ * </code> annotation processor.
+ *
+ * <p>The index is only used when every package passed to {@link Annotations#init(String...)} was
+ * compiled with the annotation processor. Otherwise, annotated elements in a package compiled
+ * without the processor would be silently missed.
+ *
+ * <p>Each compilation writes its own index resource to the {@value #INDEX_DIRECTORY} directory,
+ * named after the common package of its classes. All the index resources found by listing that
+ * directory in each classpath entry are merged.
+ */
+final class AnnotationIndex {
+  /** The directory of the resources containing the annotation indexes. */
+  static final String INDEX_DIRECTORY = "META-INF/nrgcommon/";
+
+  /** The file extension of the resources containing the annotation indexes. */
+  private static final String INDEX_EXTENSION = ".idx";
+
+  /** The record type identifying a package compiled with the annotation processor. */
+  private static final String PACKAGE_RECORD = "@package";
+
+  /** The package of the NRG Common Library, which is always indexed. */
+  private static final String LIBRARY_PACKAGE = "com.nrg948";
+
+  /* Disallow instantiation */
+  private AnnotationIndex() {}
+
+  /**
+   * Creates and initializes a {@link Reflections} instance from the annotation index, if present.
+   *
+   * @param pkgs The packages that must be covered by the annotation index.
+   * @return An optional {@link Reflections} instance initialized from the annotation index. If no
+   *     index is present or the index does not cover all the packages, {@link Optional#empty()} is
+   *     returned.
+   */
+  static Optional<Reflections> load(String... pkgs) {
+    Store store = new Store();
+    Set<String> indexedPkgs = new HashSet<>();
+    ClassLoader loader = ClassLoader.getSystemClassLoader();
+
+    try {
+      Enumeration<URL> directories = loader.getResources(INDEX_DIRECTORY);
+
+      while (directories.hasMoreElements()) {
+        for (URL index : listIndexes(directories.nextElement())) {
+          read(index, store, indexedPkgs);
+        }
+      }
+    } catch (Exception e) {
+      System.err.println("WARNING: Failed to load annotation index: " + e.getMessage());
+      return Optional.empty();
+    }
+
+    Optional<String> missingPkg =
+        Arrays.stream(pkgs).filter(pkg -> !isCovered(pkg, indexedPkgs)).findFirst();
+
+    if (missingPkg.isPresent()) {
+      // The library's own JAR always contains an index, so only warn when the robot program's
+      // packages were indexed and one of them is missing.
+      if (indexedPkgs.stream().anyMatch(pkg -> !isLibraryPackage(pkg))) {
+        System.err.println(
+            "WARNING: Annotation index does not include package "
+                + missingPkg.get()
+                + ". Is the nrgcommon-processor annotation processor configured?");
+      }
+
+      return Optional.empty();
+    }
+
+    return Optional.of(new Reflections(store));
+  }
+
+  /**
+   * Lists the annotation index resources in an index directory.
+   *
+   * @param directory The URL of the index directory in a JAR file or in a class output directory.
+   * @return The URLs of the annotation index resources in the directory.
+   */
+  private static List<URL> listIndexes(URL directory) throws Exception {
+    List<URL> indexes = new ArrayList<>();
+
+    switch (directory.getProtocol()) {
+      case "jar":
+        JarURLConnection connection = (JarURLConnection) directory.openConnection();
+
+        connection.setUseCaches(false);
+
+        try (JarFile jar = connection.getJarFile()) {
+          Enumeration<JarEntry> entries = jar.entries();
+
+          while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+
+            if (isIndex(name)) {
+              indexes.add(new URL(directory, name.substring(INDEX_DIRECTORY.length())));
+            }
+          }
+        }
+        break;
+
+      case "file":
+        List<Path> files;
+
+        try (Stream<Path> paths = Files.list(Paths.get(directory.toURI()))) {
+          files = paths.collect(Collectors.toList());
+        }
+
+        for (Path file : files) {
+          if (file.getFileName().toString().endsWith(INDEX_EXTENSION)) {
+            indexes.add(file.toUri().toURL());
+          }
+        }
+        break;
+
+      default:
+        System.err.println("WARNING: Cannot list annotation indexes in " + directory);
+        break;
+    }
+
+    return indexes;
+  }
+
+  /** Returns whether a JAR file entry is an annotation index resource. */
+  private static boolean isIndex(String name) {
+    return name.startsWith(INDEX_DIRECTORY)
+        && name.endsWith(INDEX_EXTENSION)
+        && name.indexOf('/', INDEX_DIRECTORY.length()) < 0;
+  }
+
+  /**
+   * Reads an annotation index resource into the store.
+   *
+   * @param url The URL of the annotation index resource.
+   * @param store The store to add the index records to.
+   * @param indexedPkgs The set to add the indexed packages to.
+   */
+  private static void read(URL url, Store store, Set<String> indexedPkgs) throws Exception {
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        String[] fields = line.split("\t");
+
+        if (fields.length == 2 && fields[0].equals(PACKAGE_RECORD)) {
+          indexedPkgs.add(fields[1]);
+        } else if (fields.length == 3) {
+          store
+              .computeIfAbsent(fields[0], k -> new HashMap<>())
+              .computeIfAbsent(fields[1], k -> new HashSet<>())
+              .add(fields[2]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns whether a package was compiled with the annotation processor.
+   *
+   * @param pkg The package name.
+   * @param indexedPkgs The set of packages in the annotation index.
+   * @return Whether the package or one of its subpackages is in the annotation index.
+   */
+  private static boolean isCovered(String pkg, Set<String> indexedPkgs) {
+    String prefix = pkg + ".";
+
+    return indexedPkgs.stream().anyMatch(p -> p.equals(pkg) || p.startsWith(prefix));
+  }
+
+  /** Returns whether a package is the NRG Common Library package or one of its subpackages. */
+  private static boolean isLibraryPackage(String pkg) {
+    return pkg.equals(LIBRARY_PACKAGE) || pkg.startsWith(LIBRARY_PACKAGE + ".");
+  }
+}
@@ -28,24 +28,74 @@ import static org.reflections.scanners.Scanners.MethodsAnnotated;
 import static org.reflections.scanners.Scanners.SubTypes;
 import static org.reflections.scanners.Scanners.TypesAnnotated;
 
+import com.nrg948.StartupReport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Target;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.net.JarURLConnection;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import org.reflections.Reflections;
 import org.reflections.Store;
 import org.reflections.serializers.Serializer;
 import org.reflections.serializers.XmlSerializer;
+import org.reflections.util.ClasspathHelper;
 import org.reflections.util.ConfigurationBuilder;
 import org.reflections.util.QueryFunction;
 
 /** A class providing access to types annotated by the NRG Common Library annotations. */
 public final class Annotations {
-  private static Reflections reflections;
+  /** The directory containing the Reflections metadata in the program's JAR file. */
+  private static final String METADATA_DIRECTORY = "META-INF/reflections";
+
+  /** The suffix of metadata files in the Reflections XML format. */
+  private static final String XML_FILE_SUFFIX = "-reflections.xml";
+
+  /** The key of a cached annotated element query. */
+  private record QueryKey(Class<? extends Annotation> annotation, ElementType kind) {}
+
+  private static volatile Reflections reflections;
+  private static volatile Reflections fullReflections;
+  private static volatile Set<Class<? extends Annotation>> indexedAnnotations = Set.of();
+  private static volatile boolean complete;
+  private static volatile String[] scannedPkgs = new String[0];
+  private static volatile boolean frozen;
+  private static volatile CompletableFuture<Void> ready = CompletableFuture.completedFuture(null);
+  private static final Map<QueryKey, Set<?>> cache = new ConcurrentHashMap<>();
+  private static final LongAdder cacheHits = new LongAdder();
+  private static final LongAdder cacheMisses = new LongAdder();
 
   /* Disallow instantiation */
   private Annotations() {}
@@ -53,81 +103,729 @@ public final class Annotations {
   /**
    * Initializes the annotation metadata for the NRG Common Library.
    *
+   * <p>No annotations are indexed, so the packages are scanned once with the Reflections scanners
+   * unless Reflections metadata is present in the program's JAR file. Use {@link
+   * #init(Collection, String...)} to index the annotations used at startup.
+   *
    * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
    */
   public static void init(String... pkgs) {
-    reflections = loadFromMetadata().orElseGet(() -> scanPackages(pkgs));
+    init(Set.of(), pkgs);
+  }
+
+  /**
+   * Initializes the annotation metadata for the NRG Common Library.
+   *
+   * <p>The annotation index generated by the <code>nrgcommon-processor</code> annotation processor
+   * is used when present. Otherwise, the metadata is loaded from the Reflections metadata in the
+   * program's JAR file or, as a last resort, by scanning the packages for the specified
+   * annotations.
+   *
+   * <p>The annotation index and the scan only record the elements annotated by the specified
+   * annotations. Queries for other annotations or for subtypes fall back to a full scan of the
+   * packages. See {@link #get(QueryFunction)}.
+   *
+   * @param annotations The annotations to index.
+   * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
+   */
+  public static void init(Collection<Class<? extends Annotation>> annotations, String... pkgs) {
+    load(annotations, pkgs);
+    ready = CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Initializes the annotation metadata for the NRG Common Library on a background daemon thread.
+   *
+   * <p>The robot program may continue its initialization, such as constructing subsystem hardware,
+   * while the annotation metadata is loaded. Methods querying the annotation metadata block until
+   * it is ready.
+   *
+   * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
+   * @return A future that completes when the annotation metadata is ready.
+   */
+  public static CompletableFuture<Void> initAsync(String... pkgs) {
+    return initAsync(Set.of(), pkgs);
+  }
+
+  /**
+   * Initializes the annotation metadata for the NRG Common Library on a background daemon thread.
+   *
+   * <p>The robot program may continue its initialization, such as constructing subsystem hardware,
+   * while the annotation metadata is loaded. Methods querying the annotation metadata block until
+   * it is ready. The annotations are indexed as described by {@link #init(Collection, String...)}.
+   *
+   * @param annotations The annotations to index.
+   * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
+   * @return A future that completes when the annotation metadata is ready.
+   */
+  public static CompletableFuture<Void> initAsync(
+      Collection<Class<? extends Annotation>> annotations, String... pkgs) {
+    CompletableFuture<Void> future =
+        CompletableFuture.runAsync(
+            () -> load(annotations, pkgs), Annotations::startDaemonThread);
+
+    ready = future;
+
+    return future;
+  }
+
+  /**
+   * Returns a future that completes when the annotation metadata is ready.
+   *
+   * @return A future that completes when the annotation metadata is ready.
+   */
+  public static CompletableFuture<Void> whenReady() {
+    return ready;
+  }
+
+  /**
+   * Starts a daemon thread to run a task.
+   *
+   * @param task The task to run.
+   */
+  private static void startDaemonThread(Runnable task) {
+    Thread thread = new Thread(task, "NRG Common Annotations");
+
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /** Blocks until the annotation metadata is ready. */
+  private static void awaitReady() {
+    CompletableFuture<Void> future = ready;
+
+    if (!future.isDone()) {
+      future.join();
+    }
+  }
+
+  /**
+   * Loads the annotation metadata.
+   *
+   * @param annotations The annotations to index.
+   * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
+   */
+  private static void load(Collection<Class<? extends Annotation>> annotations, String... pkgs) {
+    cache.clear();
+    frozen = false;
+    fullReflections = null;
+    indexedAnnotations = Set.copyOf(annotations);
+    scannedPkgs = pkgs.clone();
+    StartupReport.time(
+        "Annotations.init",
+        () -> {
+          Optional<Reflections> metadata = Optional.empty();
+
+          if (!annotations.isEmpty()) {
+            metadata =
+                StartupReport.time(
+                    "Annotations.loadIndex", () -> AnnotationIndex.load(withLibraryPackage(pkgs)));
+          }
+
+          if (metadata.isPresent()) {
+            complete = false;
+            reflections = metadata.get();
+            return;
+          }
+
+          metadata =
+              StartupReport.time("Annotations.loadFromMetadata", Annotations::loadFromMetadata);
+
+          if (metadata.isPresent()) {
+            complete = true;
+            reflections = metadata.get();
+          } else if (annotations.isEmpty()) {
+            // A pre-filtering scan for no annotations would find nothing, and every query would
+            // then run the full scan anyway, so the full scan is run once instead.
+            complete = true;
+            reflections = fullReflections = fullScan();
+          } else {
+            complete = false;
+            reflections =
+                StartupReport.time(
+                    "Annotations.scanPackages", () -> scanPackages(annotations, pkgs));
+          }
+        });
+  }
+
+  /**
+   * Releases the annotation metadata after caching the results of the queries used by the NRG
+   * Common Library.
+   *
+   * <p>The {@link Reflections} store holds every key loaded from the metadata for the lifetime of
+   * the program, although only a few sets of annotated elements are needed once the robot is
+   * initialized. This method caches the elements annotated by each of the annotations passed to
+   * {@link #init(Collection, String...)}, according to their {@link Target}, in small immutable
+   * sets and then drops the reference to the store so it can be garbage-collected.
+   *
+   * <p>This method should be called at the end of <code>Robot.robotInit()</code>, after the <code>
+   * RobotContainer</code> is created. Afterwards, {@link #getAnnotatedFields(Class)}, {@link
+   * #getAnnotatedMethods(Class)} and {@link #getAnnotatedTypes(Class)} continue to return the
+   * cached results, but {@link #get(QueryFunction)} and queries that were not cached throw {@link
+   * IllegalStateException}.
+   */
+  public static void freeze() {
+    freeze(false);
+  }
+
+  /**
+   * Releases the annotation metadata as described by {@link #freeze()}, optionally measuring the
+   * heap it occupied.
+   *
+   * <p>Measuring forces two full garbage collections, which stop the robot program. It is intended
+   * for diagnosing memory use on the bench, not for competition code.
+   *
+   * @param measure Whether to force garbage collections before and after releasing the metadata
+   *     and print the heap in use.
+   * @return The number of heap bytes released, or a negative value if more heap is in use after
+   *     the metadata is released. If the heap is not measured, 0 is returned.
+   */
+  public static long freeze(boolean measure) {
+    awaitReady();
+
+    for (Class<? extends Annotation> annotation : indexedAnnotations) {
+      Target target = annotation.getAnnotation(Target.class);
+      List<ElementType> kinds =
+          target != null
+              ? Arrays.asList(target.value())
+              : List.of(ElementType.FIELD, ElementType.METHOD, ElementType.TYPE);
+
+      if (kinds.contains(ElementType.FIELD)) {
+        getAnnotatedFields(annotation);
+      }
+
+      if (kinds.contains(ElementType.METHOD)) {
+        getAnnotatedMethods(annotation);
+      }
+
+      if (kinds.contains(ElementType.TYPE)) {
+        getAnnotatedTypes(annotation);
+      }
+    }
+
+    if (!measure) {
+      release();
+      return 0;
+    }
+
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    memory.gc();
+
+    long before = memory.getHeapMemoryUsage().getUsed();
+
+    release();
+    memory.gc();
+
+    long after = memory.getHeapMemoryUsage().getUsed();
+
+    System.out.printf(
+        "Released annotation metadata: heap used %.1f KB before, %.1f KB after%n",
+        before / 1024.0, after / 1024.0);
+
+    return before - after;
+  }
+
+  /** Drops the references to the annotation metadata. */
+  private static void release() {
+    frozen = true;
+    reflections = null;
+    fullReflections = null;
+  }
+
+  /**
+   * Returns whether the annotation metadata has been released by {@link #freeze()}.
+   *
+   * @return Whether the annotation metadata has been released.
+   */
+  public static boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Returns the annotation metadata.
+   *
+   * @return The annotation metadata.
+   * @throws IllegalStateException If the annotation metadata has been released by {@link
+   *     #freeze()}.
+   */
+  private static Reflections getReflections() {
+    Reflections metadata = reflections;
+
+    if (metadata == null && frozen) {
+      throw new IllegalStateException("Annotation metadata was released by Annotations.freeze()");
+    }
+
+    return metadata;
+  }
+
+  /**
+   * Returns the annotation metadata answering queries for an annotation.
+   *
+   * @param annotation The annotation class.
+   * @return The loaded metadata if it covers the annotation. Otherwise, the metadata produced by a
+   *     full scan of the packages.
+   * @throws IllegalStateException If the annotation metadata has been released by {@link
+   *     #freeze()}.
+   */
+  private static Reflections getReflections(Class<? extends Annotation> annotation) {
+    return complete || indexedAnnotations.contains(annotation)
+        ? getReflections()
+        : getFullReflections();
+  }
+
+  /**
+   * Scans the packages passed to {@link #init(Collection, String...)} with the Reflections
+   * scanners.
+   *
+   * @return The annotation metadata.
+   */
+  private static Reflections fullScan() {
+    ConfigurationBuilder configuration =
+        new ConfigurationBuilder()
+            .forPackages(withLibraryPackage(scannedPkgs))
+            .setScanners(FieldsAnnotated, MethodsAnnotated, SubTypes, TypesAnnotated);
+
+    return StartupReport.time("Annotations.fullScan", () -> new Reflections(configuration));
+  }
+
+  /**
+   * Returns the annotation metadata produced by scanning the packages with the Reflections
+   * scanners, running the scan on first use.
+   *
+   * <p>This is the slow path taken by queries that the annotation index and the pre-filtering scan
+   * cannot answer.
+   *
+   * @return The annotation metadata.
+   * @throws IllegalStateException If the annotation metadata has been released by {@link
+   *     #freeze()}.
+   */
+  private static Reflections getFullReflections() {
+    Reflections metadata = fullReflections;
+
+    if (metadata == null) {
+      synchronized (Annotations.class) {
+        getReflections();
+        metadata = fullReflections;
+
+        if (metadata == null) {
+          fullReflections = metadata = fullScan();
+        }
+      }
+    }
+
+    return metadata;
   }
 
   /**
    * Creates and initializes a {@link Reflections} instance from metadata, if present.
    *
    * <p>Reflections metadata is stored in the META-INF/reflections directory in the program's JAR
-   * file.
+   * file. Metadata in the compact binary format written by {@link BinarySerializer} is preferred.
+   * The XML format is only read when a JAR file or directory does not contain binary metadata. The
+   * metadata in each JAR file is loaded in parallel on the common {@link ForkJoinPool}.
    *
    * @return An optional {@link Reflections} instance initialized from metadata. If no metadata is
    *     present, {@link Optional#empty()} is returned.
    */
   private static Optional<Reflections> loadFromMetadata() {
-    Optional<Reflections> reflections = Optional.empty();
-    Serializer xmlSerializer = new XmlSerializer();
+    List<URL> urls = new ArrayList<>();
     ClassLoader loader = ClassLoader.getSystemClassLoader();
 
     try {
-      Enumeration<URL> resources = loader.getResources("META-INF/reflections");
+      Enumeration<URL> resources = loader.getResources(METADATA_DIRECTORY);
 
       while (resources.hasMoreElements()) {
-        URL url = resources.nextElement();
-        JarURLConnection connection = (JarURLConnection) url.openConnection();
+        urls.add(resources.nextElement());
+      }
+    } catch (Exception e) {
+      System.err.println("WARNING: Failed to load Reflections metadata: " + e.getMessage());
+    }
+
+    if (urls.isEmpty()) {
+      return Optional.empty();
+    }
+
+    return ForkJoinPool.commonPool().invoke(new MetadataLoadTask(urls)).map(Reflections::new);
+  }
 
-        try (JarFile jar = connection.getJarFile()) {
-          Enumeration<JarEntry> entries = jar.entries();
+  /**
+   * A task that loads the Reflections metadata from a list of META-INF/reflections directories.
+   *
+   * <p>The metadata in each JAR file is read by a separate fork-join task into its own {@link
+   * Store}. The stores are merged pairwise as the tasks are joined so that no store is shared
+   * between threads while the metadata is being read.
+   */
+  private static final class MetadataLoadTask extends RecursiveTask<Optional<Store>> {
+    private static final long serialVersionUID = 1L;
+
+    private final List<URL> urls;
+
+    /**
+     * Constructs a task to load the metadata from a list of META-INF/reflections directories.
+     *
+     * @param urls The URLs of the META-INF/reflections directories.
+     */
+    MetadataLoadTask(List<URL> urls) {
+      this.urls = urls;
+    }
+
+    @Override
+    protected Optional<Store> compute() {
+      if (urls.size() == 1) {
+        return readTimedMetadata(urls.get(0));
+      }
+
+      int middle = urls.size() / 2;
+      MetadataLoadTask first = new MetadataLoadTask(urls.subList(0, middle));
+      MetadataLoadTask second = new MetadataLoadTask(urls.subList(middle, urls.size()));
+
+      first.fork();
+
+      Optional<Store> secondStore = second.compute();
+      Optional<Store> firstStore = first.join();
+
+      if (firstStore.isEmpty()) {
+        return secondStore;
+      }
+
+      if (secondStore.isEmpty()) {
+        return firstStore;
+      }
+
+      return Optional.of(merge(firstStore.get(), secondStore.get()));
+    }
 
-          while (entries.hasMoreElements()) {
-            JarEntry entry = entries.nextElement();
+    /**
+     * Reads the Reflections metadata from a META-INF/reflections directory and reports how long it
+     * took.
+     *
+     * @param url The URL of the META-INF/reflections directory.
+     * @return The metadata in the directory. If the directory contains no metadata or the metadata
+     *     cannot be read, {@link Optional#empty()} is returned.
+     */
+    private static Optional<Store> readTimedMetadata(URL url) {
+      long startTime = System.nanoTime();
 
-            if (entry.getName().endsWith("-reflections.xml")) {
-              if (reflections.isEmpty()) {
-                reflections = Optional.of(new Reflections());
-              }
+      try {
+        Optional<Store> store = readMetadata(url);
 
-              reflections.get().collect(jar.getInputStream(entry), xmlSerializer);
-            }
+        System.out.printf(
+            "Loaded Reflections metadata from %s in %.1f ms%n",
+            url, (System.nanoTime() - startTime) / 1e6);
+
+        return store;
+      } catch (Exception e) {
+        System.err.println(
+            "WARNING: Failed to load Reflections metadata from " + url + ": " + e.getMessage());
+      }
+
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Reads the Reflections metadata from a META-INF/reflections directory.
+   *
+   * @param url The URL of the META-INF/reflections directory in a JAR file or on the file system.
+   * @return The metadata in the directory. If the directory contains no metadata, {@link
+   *     Optional#empty()} is returned.
+   * @throws Exception If the metadata cannot be read.
+   */
+  private static Optional<Store> readMetadata(URL url) throws Exception {
+    switch (url.getProtocol()) {
+      case "jar":
+        return readJarMetadata((JarURLConnection) url.openConnection());
+
+      case "file":
+        return readDirectoryMetadata(Path.of(url.toURI()));
+
+      default:
+        return Optional.empty();
+    }
+  }
+
+  /**
+   * Reads the Reflections metadata from the META-INF/reflections directory in a JAR file.
+   *
+   * @param connection The connection to the META-INF/reflections directory in the JAR file.
+   * @return The metadata in the JAR file. If the JAR file contains no metadata, {@link
+   *     Optional#empty()} is returned.
+   * @throws IOException If the metadata cannot be read.
+   */
+  private static Optional<Store> readJarMetadata(JarURLConnection connection) throws IOException {
+    try (JarFile jar = connection.getJarFile()) {
+      List<JarEntry> binaryEntries = new ArrayList<>();
+      List<JarEntry> xmlEntries = new ArrayList<>();
+      Enumeration<JarEntry> entries = jar.entries();
+
+      while (entries.hasMoreElements()) {
+        JarEntry entry = entries.nextElement();
+
+        if (entry.getName().endsWith(BinarySerializer.FILE_SUFFIX)) {
+          binaryEntries.add(entry);
+        } else if (entry.getName().endsWith(XML_FILE_SUFFIX)) {
+          xmlEntries.add(entry);
+        }
+      }
+
+      Store store = null;
+
+      if (!binaryEntries.isEmpty()) {
+        BinarySerializer binarySerializer = new BinarySerializer();
+
+        for (JarEntry entry : binaryEntries) {
+          try (InputStream in = jar.getInputStream(entry)) {
+            ByteBuffer buffer = BinarySerializer.toByteBuffer(in, entry.getSize());
+
+            store = merge(store, binarySerializer.readStore(buffer));
+          }
+        }
+      } else {
+        Serializer xmlSerializer = new XmlSerializer();
+
+        for (JarEntry entry : xmlEntries) {
+          try (InputStream in = jar.getInputStream(entry)) {
+            store = merge(store, xmlSerializer.read(in).getStore());
           }
         }
       }
-    } catch (Exception e) {
-      System.err.println("WARNING: Failed to load Reflections metadata: " + e.getMessage());
+
+      return Optional.ofNullable(store);
     }
+  }
 
-    return reflections;
+  /**
+   * Reads the Reflections metadata from a META-INF/reflections directory on the file system. Binary
+   * metadata files are memory-mapped.
+   *
+   * @param directory The path of the META-INF/reflections directory.
+   * @return The metadata in the directory. If the directory contains no metadata, {@link
+   *     Optional#empty()} is returned.
+   * @throws IOException If the metadata cannot be read.
+   */
+  private static Optional<Store> readDirectoryMetadata(Path directory) throws IOException {
+    List<Path> binaryFiles = new ArrayList<>();
+    List<Path> xmlFiles = new ArrayList<>();
+
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (Path file : files) {
+        String name = file.getFileName().toString();
+
+        if (name.endsWith(BinarySerializer.FILE_SUFFIX)) {
+          binaryFiles.add(file);
+        } else if (name.endsWith(XML_FILE_SUFFIX)) {
+          xmlFiles.add(file);
+        }
+      }
+    }
+
+    Store store = null;
+
+    if (!binaryFiles.isEmpty()) {
+      BinarySerializer binarySerializer = new BinarySerializer();
+
+      for (Path file : binaryFiles) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+          MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+
+          store = merge(store, binarySerializer.readStore(buffer));
+        }
+      }
+    } else {
+      Serializer xmlSerializer = new XmlSerializer();
+
+      for (Path file : xmlFiles) {
+        try (InputStream in = Files.newInputStream(file)) {
+          store = merge(store, xmlSerializer.read(in).getStore());
+        }
+      }
+    }
+
+    return Optional.ofNullable(store);
+  }
+
+  /**
+   * Merges the contents of one store into another.
+   *
+   * @param target The store to merge into, or null if there is no store yet.
+   * @param source The store to merge.
+   * @return The merged store.
+   */
+  static Store merge(Store target, Store source) {
+    if (target == null) {
+      return source;
+    }
+
+    source.forEach(
+        (index, keys) -> {
+          Map<String, Set<String>> targetKeys = target.computeIfAbsent(index, k -> new HashMap<>());
+
+          keys.forEach(
+              (key, values) ->
+                  targetKeys.computeIfAbsent(key, k -> new HashSet<>()).addAll(values));
+        });
+
+    return target;
   }
 
   /**
    * Scans the specified packages for annotations implemented by the NRG Common Library.
    *
+   * <p>Only class files in the specified packages are read, and only those referencing one of the
+   * library's annotations are parsed. See {@link AnnotatedClassScanner}.
+   *
+   * <p>The scan result of each classpath entry is cached on disk, and a classpath entry is only
+   * rescanned when its contents change. See {@link ScanCache}.
+   *
+   * @param annotations The annotations to scan for.
    * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
    * @return The annotation metadata for the specified packages.
    */
-  private static Reflections scanPackages(String... pkgs) {
+  private static Reflections scanPackages(
+      Collection<Class<? extends Annotation>> annotations, String... pkgs) {
+    String[] allPkgs = withLibraryPackage(pkgs);
+    Set<URL> urls = new LinkedHashSet<>();
+
+    for (String pkg : allPkgs) {
+      urls.addAll(ClasspathHelper.forPackage(pkg));
+    }
+
+    Set<String> annotationNames = new HashSet<>();
+
+    for (Class<? extends Annotation> annotation : annotations) {
+      annotationNames.add(annotation.getName());
+    }
+
+    AnnotatedClassScanner scanner = new AnnotatedClassScanner(annotationNames, allPkgs);
+    ScanCache cache = new ScanCache(ScanCache.defaultDirectory(), annotationNames, allPkgs);
+    Store store = new Store();
+
+    for (URL url : urls) {
+      cache.scan(url, store, scanner::scan);
+    }
+
+    return new Reflections(store);
+  }
+
+  /**
+   * Returns the specified packages along with the NRG Common Library package.
+   *
+   * @param pkgs The packages to scan for annotations implemented by the NRG Common Library.
+   * @return The specified packages and the NRG Common Library package.
+   */
+  private static String[] withLibraryPackage(String... pkgs) {
     String[] allPkgs = Arrays.copyOf(pkgs, pkgs.length + 1);
 
     allPkgs[allPkgs.length - 1] = "com.nrg948";
 
-    return new Reflections(
-        new ConfigurationBuilder()
-            .forPackages(allPkgs)
-            .setScanners(FieldsAnnotated, MethodsAnnotated, SubTypes, TypesAnnotated));
+    return allPkgs;
   }
 
   /**
    * Returns the set of elements annotated with the specified annotation.
    *
+   * <p>When the annotation metadata is loaded from the annotation index or by the pre-filtering
+   * scan, it only contains the elements annotated by the annotations passed to {@link
+   * #init(Collection, String...)}. Since the query cannot be inspected, this method then answers
+   * it from a full scan of the packages with the Reflections scanners, including the SubTypes
+   * index. The full scan runs once, on the first call.
+   *
+   * <p>The query is run against the annotation metadata on every call. Prefer {@link
+   * #getAnnotatedFields(Class)}, {@link #getAnnotatedMethods(Class)} or {@link
+   * #getAnnotatedTypes(Class)}, which cache their results.
+   *
    * @param <T> The type of element.
    * @param query The query function.
    * @return The set of elements annotated with the specified annotation.
+   * @throws IllegalStateException If the annotation metadata has been released by {@link
+   *     #freeze()}.
    */
   public static <T> Set<T> get(QueryFunction<Store, T> query) {
-    return reflections.get(query);
+    awaitReady();
+
+    return (complete ? getReflections() : getFullReflections()).get(query);
+  }
+
+  /**
+   * Returns the set of fields annotated with the specified annotation.
+   *
+   * @param annotation The annotation class.
+   * @return An immutable set of fields annotated with the specified annotation.
+   */
+  public static Set<Field> getAnnotatedFields(Class<? extends Annotation> annotation) {
+    return getCached(
+        annotation, ElementType.FIELD, () -> FieldsAnnotated.with(annotation).as(Field.class));
+  }
+
+  /**
+   * Returns the set of methods annotated with the specified annotation.
+   *
+   * @param annotation The annotation class.
+   * @return An immutable set of methods annotated with the specified annotation.
+   */
+  public static Set<Method> getAnnotatedMethods(Class<? extends Annotation> annotation) {
+    return getCached(
+        annotation, ElementType.METHOD, () -> MethodsAnnotated.with(annotation).as(Method.class));
+  }
+
+  /**
+   * Returns the set of types annotated with the specified annotation.
+   *
+   * @param annotation The annotation class.
+   * @return An immutable set of types annotated with the specified annotation.
+   */
+  public static Set<Class<?>> getAnnotatedTypes(Class<? extends Annotation> annotation) {
+    return getCached(
+        annotation, ElementType.TYPE, () -> TypesAnnotated.with(annotation).asClass());
+  }
+
+  /**
+   * Returns the number of annotated element queries answered from the cache.
+   *
+   * @return The number of cache hits.
+   */
+  public static long getCacheHits() {
+    return cacheHits.sum();
+  }
+
+  /**
+   * Returns the number of annotated element queries run against the annotation metadata.
+   *
+   * @return The number of cache misses.
+   */
+  public static long getCacheMisses() {
+    return cacheMisses.sum();
+  }
+
+  /**
+   * Returns the cached result of an annotated element query, running the query on first use.
+   *
+   * @param <T> The type of element.
+   * @param annotation The annotation class.
+   * @param kind The kind of annotated element.
+   * @param query A supplier of the query function run on a cache miss.
+   * @return An immutable set of elements returned by the query.
+   */
+  @SuppressWarnings("unchecked")
+  private static <T> Set<T> getCached(
+      Class<? extends Annotation> annotation,
+      ElementType kind,
+      Supplier<QueryFunction<Store, T>> query) {
+    awaitReady();
+
+    QueryKey key = new QueryKey(annotation, kind);
+    Set<?> result = cache.get(key);
+
+    if (result != null) {
+      cacheHits.increment();
+    } else {
+      cacheMisses.increment();
+      result =
+          cache.computeIfAbsent(
+              key, k -> Set.copyOf(getReflections(annotation).get(query.get())));
+    }
+
+    return (Set<T>) result;
   }
 }
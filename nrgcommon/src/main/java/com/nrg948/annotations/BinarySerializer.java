@@ -0,0 +1,301 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.annotations;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.reflections.Reflections;
+import org.reflections.Store;
+import org.reflections.serializers.Serializer;
+
+/**
+ * A Reflections {@link Serializer} that stores the annotation metadata in a compact binary format.
+ *
+ * <p>Unlike the {@link org.reflections.serializers.XmlSerializer}, reading the binary format does
+ * not build a document tree. Every string is stored once in an interned string table and the
+ * metadata is read directly from a {@link ByteBuffer}, which may be a {@link
+ * java.nio.MappedByteBuffer} or a direct buffer filled from the program's JAR file.
+ *
+ * <p>The format consists of the following sections. All integers are unsigned 32-bit big-endian
+ * values unless otherwise noted.
+ *
+ * <ol>
+ *   <li>A header containing the {@link #MAGIC} number, the 16-bit format {@link #VERSION} and 16
+ *       reserved bits.
+ *   <li>The string table: the number of strings, followed by an offset table of <code>count + 1
+ *       </code> entries relative to the start of the string data, followed by the UTF-8 encoded
+ *       string data.
+ *   <li>The index table: the number of Reflections indexes, followed by an offset table containing
+ *       the absolute position of each index section.
+ *   <li>One section per index containing the string ID of the index name, the number of keys and,
+ *       for each key (usually an annotation), the key string ID, the number of values and the value
+ *       string IDs.
+ * </ol>
+ *
+ * <p>Metadata in this format is stored in a file ending with {@value #FILE_SUFFIX} in the
+ * META-INF/reflections directory of the program's JAR file.
+ */
+public class BinarySerializer implements Serializer {
+  /** The magic number identifying the binary metadata format ("NRGA"). */
+  public static final int MAGIC = 0x4E524741;
+
+  /** The version of the binary metadata format. */
+  public static final int VERSION = 1;
+
+  /** The suffix of metadata files in the binary format. */
+  public static final String FILE_SUFFIX = "-reflections.bin";
+
+  /** Constructs an instance of this class. */
+  public BinarySerializer() {}
+
+  @Override
+  public Reflections read(InputStream inputStream) {
+    try {
+      return new Reflections(readStore(toByteBuffer(inputStream, -1)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read binary Reflections metadata", e);
+    }
+  }
+
+  /**
+   * Reads the metadata from a buffer in the binary format.
+   *
+   * @param buffer The buffer containing the metadata. The metadata is read from the current
+   *     position of the buffer.
+   * @return The store containing the metadata.
+   * @throws IllegalArgumentException If the buffer does not contain metadata in the binary format.
+   */
+  public Store readStore(ByteBuffer buffer) {
+    ByteBuffer in = buffer.slice();
+
+    if (in.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not binary Reflections metadata");
+    }
+
+    int version = Short.toUnsignedInt(in.getShort());
+
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported binary metadata version: " + version);
+    }
+
+    in.getShort(); // reserved
+
+    String[] strings = readStrings(in);
+    int indexCount = in.getInt();
+    int indexTable = in.position();
+    Store store = new Store();
+
+    for (int i = 0; i < indexCount; i++) {
+      in.position(in.getInt(indexTable + i * Integer.BYTES));
+
+      String index = strings[in.getInt()];
+      int keyCount = in.getInt();
+      Map<String, Set<String>> keys = store.computeIfAbsent(index, k -> new HashMap<>(keyCount));
+
+      for (int j = 0; j < keyCount; j++) {
+        String key = strings[in.getInt()];
+        int valueCount = in.getInt();
+        Set<String> values = keys.computeIfAbsent(key, k -> new HashSet<>(valueCount));
+
+        for (int k = 0; k < valueCount; k++) {
+          values.add(strings[in.getInt()]);
+        }
+      }
+    }
+
+    return store;
+  }
+
+  /**
+   * Reads the string table. On return, the buffer is positioned at the index table.
+   *
+   * @param in The buffer positioned at the start of the string table.
+   * @return The strings in the string table indexed by string ID.
+   */
+  private static String[] readStrings(ByteBuffer in) {
+    int count = in.getInt();
+    int offsetTable = in.position();
+    int data = offsetTable + (count + 1) * Integer.BYTES;
+    String[] strings = new String[count];
+    byte[] scratch = new byte[256];
+
+    for (int i = 0; i < count; i++) {
+      int start = in.getInt(offsetTable + i * Integer.BYTES);
+      int length = in.getInt(offsetTable + (i + 1) * Integer.BYTES) - start;
+
+      if (in.hasArray()) {
+        strings[i] =
+            new String(
+                in.array(), in.arrayOffset() + data + start, length, StandardCharsets.UTF_8);
+      } else {
+        if (scratch.length < length) {
+          scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+
+        in.get(data + start, scratch, 0, length);
+        strings[i] = new String(scratch, 0, length, StandardCharsets.UTF_8);
+      }
+    }
+
+    in.position(data + in.getInt(offsetTable + count * Integer.BYTES));
+
+    return strings;
+  }
+
+  @Override
+  public File save(Reflections reflections, String filename) {
+    File file = new File(filename);
+
+    try {
+      File parent = file.getAbsoluteFile().getParentFile();
+
+      if (parent != null) {
+        Files.createDirectories(parent.toPath());
+      }
+
+      Files.write(file.toPath(), toBytes(reflections.getStore()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to save binary Reflections metadata", e);
+    }
+
+    return file;
+  }
+
+  /**
+   * Returns the metadata in the binary format.
+   *
+   * @param store The store containing the metadata.
+   * @return The metadata in the binary format.
+   */
+  public byte[] toBytes(Store store) {
+    Map<String, Integer> ids = new LinkedHashMap<>();
+
+    store.forEach(
+        (index, keys) -> {
+          ids.computeIfAbsent(index, s -> ids.size());
+          keys.forEach(
+              (key, values) -> {
+                ids.computeIfAbsent(key, s -> ids.size());
+                values.forEach(value -> ids.computeIfAbsent(value, s -> ids.size()));
+              });
+        });
+
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeShort(0);
+
+      // Write the string table.
+      List<byte[]> encoded = new ArrayList<>(ids.size());
+      int offset = 0;
+
+      out.writeInt(ids.size());
+
+      for (String s : ids.keySet()) {
+        byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+
+        encoded.add(utf8);
+        out.writeInt(offset);
+        offset += utf8.length;
+      }
+
+      out.writeInt(offset);
+
+      for (byte[] utf8 : encoded) {
+        out.write(utf8);
+      }
+
+      // Write the index offset table followed by the index sections.
+      int sectionStart = out.size() + Integer.BYTES + store.size() * Integer.BYTES;
+      ByteArrayOutputStream sectionBytes = new ByteArrayOutputStream();
+      DataOutputStream sections = new DataOutputStream(sectionBytes);
+
+      out.writeInt(store.size());
+
+      for (Map.Entry<String, Map<String, Set<String>>> index : store.entrySet()) {
+        out.writeInt(sectionStart + sections.size());
+
+        sections.writeInt(ids.get(index.getKey()));
+        sections.writeInt(index.getValue().size());
+
+        for (Map.Entry<String, Set<String>> key : index.getValue().entrySet()) {
+          sections.writeInt(ids.get(key.getKey()));
+          sections.writeInt(key.getValue().size());
+
+          for (String value : key.getValue()) {
+            sections.writeInt(ids.get(value));
+          }
+        }
+      }
+
+      sections.flush();
+      sectionBytes.writeTo(out);
+      out.flush();
+
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Reads a stream into a direct {@link ByteBuffer}.
+   *
+   * @param inputStream The stream to read.
+   * @param size The number of bytes in the stream, or a negative value if unknown.
+   * @return A direct {@link ByteBuffer} containing the contents of the stream.
+   * @throws IOException If an I/O error occurs.
+   */
+  static ByteBuffer toByteBuffer(InputStream inputStream, long size) throws IOException {
+    if (size < 0) {
+      return ByteBuffer.wrap(inputStream.readAllBytes());
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(size));
+    ReadableByteChannel channel = Channels.newChannel(inputStream);
+
+    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {}
+
+    return buffer.flip();
+  }
+}
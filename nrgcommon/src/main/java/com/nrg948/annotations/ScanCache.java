@@ -0,0 +1,306 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.annotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.reflections.Store;
+
+/**
+ * A persistent cache of the results of scanning classpath entries for annotations.
+ *
+ * <p>The scan result of each classpath entry is stored in its own file in the cache directory
+ * using the format written by {@link BinarySerializer}. Each file is keyed by a fingerprint of the
+ * classpath entry consisting of its path, size, modification time and content hash, along with the
+ * scanned packages and annotations. A classpath entry is only rescanned when its fingerprint
+ * changes, so a reboot with an unchanged deploy loads the scan results without reading any class
+ * files.
+ *
+ * <p>The content hash of a JAR file is computed from the names, sizes and CRC-32 checksums stored
+ * in its central directory, which changes whenever the content of any entry changes but does not
+ * require decompressing the entries. The content hash of a directory is computed from the relative
+ * paths and contents of the class files it contains.
+ */
+final class ScanCache {
+  /** The magic number identifying a scan cache file ("NRGC"). */
+  private static final int MAGIC = 0x4E524743;
+
+  /** The version of the scan cache file format. */
+  private static final int VERSION = 1;
+
+  /** The suffix of scan cache files. */
+  private static final String FILE_SUFFIX = "-scan.bin";
+
+  private final Path directory;
+  private final String scope;
+
+  /**
+   * Constructs a scan cache.
+   *
+   * @param directory The directory containing the cache files.
+   * @param annotationNames The names of the annotations scanned for.
+   * @param pkgs The scanned packages.
+   */
+  ScanCache(Path directory, Collection<String> annotationNames, String... pkgs) {
+    this.directory = directory;
+    this.scope = String.join(",", pkgs) + ";" + String.join(",", new TreeSet<>(annotationNames));
+  }
+
+  /**
+   * Returns the default cache directory, <code>.nrgcommon/scan-cache</code> in the user's home
+   * directory.
+   *
+   * @return The default cache directory.
+   */
+  static Path defaultDirectory() {
+    return Path.of(System.getProperty("user.home"), ".nrgcommon", "scan-cache");
+  }
+
+  /**
+   * Adds the scan result of a classpath entry to the store, scanning the classpath entry only if
+   * it has no valid cached result.
+   *
+   * <p>Classpath entries that are not local JAR files or directories are always scanned.
+   *
+   * @param url The URL of the classpath entry.
+   * @param store The store to add the annotated elements to.
+   * @param scanner The function used to scan the classpath entry on a cache miss.
+   */
+  void scan(URL url, Store store, BiConsumer<URL, Store> scanner) {
+    Path path = toPath(url);
+
+    if (path == null) {
+      scanner.accept(url, store);
+      return;
+    }
+
+    String key;
+
+    try {
+      key = fingerprint(path);
+    } catch (IOException | RuntimeException e) {
+      System.err.println("WARNING: Failed to fingerprint " + path + ": " + e.getMessage());
+      scanner.accept(url, store);
+      return;
+    }
+
+    Path cacheFile = directory.resolve(cacheFileName(path));
+    Store cached = read(cacheFile, key);
+
+    if (cached == null) {
+      cached = new Store();
+      scanner.accept(url, cached);
+      write(cacheFile, key, cached);
+    }
+
+    Annotations.merge(store, cached);
+  }
+
+  /**
+   * Returns the local path of a classpath entry.
+   *
+   * @param url The URL of the classpath entry.
+   * @return The path of the JAR file or directory, or null if the classpath entry is not local.
+   */
+  private static Path toPath(URL url) {
+    try {
+      if (url.getProtocol().equals("jar")) {
+        String file = url.getPath();
+        int separator = file.indexOf("!/");
+
+        url = new URL(separator < 0 ? file : file.substring(0, separator));
+      }
+
+      if (!url.getProtocol().equals("file")) {
+        return null;
+      }
+
+      return Path.of(url.toURI());
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /** Returns the name of the cache file for a classpath entry. */
+  private static String cacheFileName(Path path) {
+    String name = path.getFileName() != null ? path.getFileName().toString() : "root";
+    CRC32C crc = new CRC32C();
+
+    crc.update(path.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8));
+
+    return String.format("%s-%08x%s", name, crc.getValue(), FILE_SUFFIX);
+  }
+
+  /**
+   * Returns the fingerprint of a classpath entry.
+   *
+   * @param path The path of the JAR file or directory.
+   * @return The fingerprint identifying the contents of the classpath entry and the scanned
+   *     packages.
+   * @throws IOException If an I/O error occurs.
+   */
+  private String fingerprint(Path path) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+    long hash = attributes.isDirectory() ? hashDirectory(path) : hashJar(path);
+
+    return String.format(
+        "%s|%d|%d|%016x|%s",
+        path.toAbsolutePath(),
+        attributes.size(),
+        attributes.lastModifiedTime().toMillis(),
+        hash,
+        scope);
+  }
+
+  /** Returns the content hash of a JAR file computed from its central directory. */
+  private static long hashJar(Path path) throws IOException {
+    CRC32C crc = new CRC32C();
+    ByteBuffer entryData = ByteBuffer.allocate(2 * Long.BYTES);
+
+    try (ZipFile jar = new ZipFile(path.toFile())) {
+      Enumeration<? extends ZipEntry> entries = jar.entries();
+
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+
+        crc.update(entry.getName().getBytes(StandardCharsets.UTF_8));
+        entryData.clear();
+        entryData.putLong(entry.getSize()).putLong(entry.getCrc()).flip();
+        crc.update(entryData);
+      }
+    }
+
+    return crc.getValue();
+  }
+
+  /** Returns the content hash of the class files in a directory. */
+  private static long hashDirectory(Path path) throws IOException {
+    CRC32C crc = new CRC32C();
+
+    try (Stream<Path> files = Files.walk(path)) {
+      List<Path> classFiles =
+          files
+              .filter(file -> file.toString().endsWith(".class"))
+              .sorted()
+              .collect(Collectors.toList());
+
+      for (Path file : classFiles) {
+        crc.update(path.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+        crc.update(Files.readAllBytes(file));
+      }
+    }
+
+    return crc.getValue();
+  }
+
+  /**
+   * Reads a cached scan result.
+   *
+   * @param cacheFile The cache file.
+   * @param key The fingerprint of the classpath entry.
+   * @return The cached scan result, or null if the cache file is missing, unreadable or was
+   *     written for a different fingerprint.
+   */
+  private static Store read(Path cacheFile, String key) {
+    try {
+      byte[] bytes = Files.readAllBytes(cacheFile);
+      InputStream stream = new ByteArrayInputStream(bytes);
+      DataInputStream in = new DataInputStream(stream);
+
+      if (in.readInt() != MAGIC || in.readShort() != VERSION || !in.readUTF().equals(key)) {
+        return null;
+      }
+
+      int offset = bytes.length - stream.available();
+
+      return new BinarySerializer()
+          .readStore(ByteBuffer.wrap(bytes, offset, bytes.length - offset));
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      System.err.println(
+          "WARNING: Failed to read scan cache file " + cacheFile + ": " + e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Writes a scan result to the cache.
+   *
+   * <p>The cache file is written to a temporary file and then moved into place so that a power
+   * loss while writing never leaves a partially written cache file.
+   *
+   * @param cacheFile The cache file.
+   * @param key The fingerprint of the classpath entry.
+   * @param store The scan result.
+   */
+  private void write(Path cacheFile, String key, Store store) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream out = new DataOutputStream(bytes);
+
+      out.writeInt(MAGIC);
+      out.writeShort(VERSION);
+      out.writeUTF(key);
+      out.write(new BinarySerializer().toBytes(store));
+      out.flush();
+
+      Files.createDirectories(directory);
+
+      Path tempFile = Files.createTempFile(directory, null, ".tmp");
+
+      try {
+        Files.write(tempFile, bytes.toByteArray());
+        Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(tempFile);
+      }
+    } catch (IOException | RuntimeException e) {
+      System.err.println(
+          "WARNING: Failed to write scan cache file " + cacheFile + ": " + e.getMessage());
+    }
+  }
+}
@@ -23,16 +23,12 @@
 */
 package com.nrg948.autonomous;
 
-import static org.reflections.scanners.Scanners.MethodsAnnotated;
-import static org.reflections.scanners.Scanners.SubTypes;
-import static org.reflections.util.ReflectionUtilsPredicates.withAnnotation;
-import static org.reflections.util.ReflectionUtilsPredicates.withStatic;
-
 import com.nrg948.annotations.Annotations;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj2.command.Command;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.stream.Stream;
@@ -98,25 +94,16 @@ public final class Autonomous {
     SendableChooser<Command> chooser = new SendableChooser<>();
 
     Stream<CommandFactory<T>> commandClasses =
-        Annotations.get(
-                SubTypes.of(Command.class)
-                    .asClass()
-                    .filter(withAnnotation(AutonomousCommand.class)))
-            .stream()
+        Annotations.getAnnotatedTypes(AutonomousCommand.class).stream()
+            .filter(Command.class::isAssignableFrom)
             .map(Autonomous::<T>toCommandFactory);
     Stream<CommandFactory<T>> commandMethods =
-        Annotations.get(
-                MethodsAnnotated.with(AutonomousCommandMethod.class)
-                    .as(Method.class)
-                    .filter(withStatic()))
-            .stream()
+        Annotations.getAnnotatedMethods(AutonomousCommandMethod.class).stream()
+            .filter(m -> Modifier.isStatic(m.getModifiers()))
             .map(Autonomous::<T>toCommandFactory);
     Stream<CommandFactory<T>> commandGenerators =
-        Annotations.get(
-                MethodsAnnotated.with(AutonomousCommandGenerator.class)
-                    .as(Method.class)
-                    .filter(withStatic()))
-            .stream()
+        Annotations.getAnnotatedMethods(AutonomousCommandGenerator.class).stream()
+            .filter(m -> Modifier.isStatic(m.getModifiers()))
             .flatMap(m -> generateCommands(m, container));
 
     Stream.of(commandClasses, commandMethods, commandGenerators)
@@ -44,5 +44,14 @@
  * }
  * </code>
  * </pre>
+ *
+ * <p>To overlap the library initialization with the construction of the subsystems, call {@link
+ * Common#initAsync(String...)} instead. The annotation metadata is loaded on a background thread
+ * and methods that need it wait until it is ready. The robot preferences are then initialized on
+ * the robot thread the first time they are used.
+ *
+ * <p>Once the <code>RobotContainer</code> is created, call {@link
+ * com.nrg948.annotations.Annotations#freeze()} to release the annotation metadata and reclaim the
+ * heap it occupies for the rest of the match.
  */
 package com.nrg948;
@@ -0,0 +1,244 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import com.nrg948.preferences.InterpolatingTableValue.Interpolation;
+import com.nrg948.preferences.InterpolatingTableValue.Table;
+import com.nrg948.preferences.RobotPreferences.BooleanValue;
+import com.nrg948.preferences.RobotPreferences.DoubleValue;
+import com.nrg948.preferences.RobotPreferences.EnumValue;
+import com.nrg948.preferences.RobotPreferences.IValueVisitor;
+import com.nrg948.preferences.RobotPreferences.StringValue;
+import com.nrg948.preferences.RobotPreferences.Value;
+import java.util.Map;
+
+/**
+ * An immutable, consistent view of every preferences value in a group.
+ *
+ * <p>Reading several related values, such as PID gains, with separate <code>getValue</code> calls
+ * may observe a change made from the dashboard between two of the calls. A snapshot returned by
+ * {@link RobotPreferences#snapshot(String)} instead captures all the values in the group at once.
+ * The values are stored in arrays and a new snapshot is only created when one of the values
+ * changes, so reading a snapshot every loop does not allocate memory. Snapshots require cached
+ * reads to be enabled by {@link RobotPreferences#setCachedReads(boolean)}.
+ *
+ * <pre>
+ * <code>
+ * GroupSnapshot gains = RobotPreferences.snapshot("Arm");
+ *
+ * if (gains.version() != lastVersion) {
+ *   controller.setPID(gains.getDouble("kP"), gains.getDouble("kI"), gains.getDouble("kD"));
+ *   lastVersion = gains.version();
+ * }
+ * </code>
+ * </pre>
+ */
+public final class GroupSnapshot {
+  private final String group;
+  private final Value[] values;
+  private final Map<String, Integer> slots;
+  private final long version;
+  private final double[] doubles;
+  private final boolean[] booleans;
+  private final Object[] objects;
+
+  /**
+   * Captures the current values of a group.
+   *
+   * @param group The group name.
+   * @param values The values in the group.
+   * @param slots The index of each value in the group by name.
+   * @param version The sum of the versions of the values when the snapshot was captured.
+   */
+  GroupSnapshot(String group, Value[] values, Map<String, Integer> slots, long version) {
+    this.group = group;
+    this.values = values;
+    this.slots = slots;
+    this.version = version;
+    this.doubles = new double[values.length];
+    this.booleans = new boolean[values.length];
+    this.objects = new Object[values.length];
+
+    SnapshotWriter writer = new SnapshotWriter();
+
+    for (int i = 0; i < values.length; i++) {
+      writer.slot = i;
+      values[i].accept(writer);
+    }
+  }
+
+  /** A Visitor that copies the current value into the snapshot arrays. */
+  private final class SnapshotWriter implements IValueVisitor {
+    private int slot;
+
+    @Override
+    public void visit(StringValue value) {
+      objects[slot] = value.getValue();
+    }
+
+    @Override
+    public void visit(BooleanValue value) {
+      booleans[slot] = value.getValue();
+    }
+
+    @Override
+    public void visit(DoubleValue value) {
+      doubles[slot] = value.getValue();
+    }
+
+    @Override
+    public <E extends Enum<E>> void visit(EnumValue<E> value) {
+      objects[slot] = value.getValue();
+    }
+
+    @Override
+    public void visit(InterpolatingTableValue value) {
+      objects[slot] = value.getTable();
+    }
+  }
+
+  /**
+   * Returns the group name.
+   *
+   * @return The group name.
+   */
+  public String getGroup() {
+    return group;
+  }
+
+  /**
+   * Returns the version of this snapshot.
+   *
+   * <p>The version increases whenever one of the values in the group changes. Two snapshots of
+   * the same group with the same version contain the same values.
+   *
+   * @return The version of this snapshot.
+   */
+  public long version() {
+    return version;
+  }
+
+  /**
+   * Returns whether the group contains a value with the specified name.
+   *
+   * @param name The value name.
+   * @return Whether the group contains the value.
+   */
+  public boolean contains(String name) {
+    return slots.containsKey(name);
+  }
+
+  /**
+   * Returns a string value.
+   *
+   * @param name The value name.
+   * @return The value captured by this snapshot.
+   * @throws IllegalArgumentException If the group does not contain a {@link StringValue} with the
+   *     specified name.
+   */
+  public String getString(String name) {
+    return (String) objects[slotOf(name, StringValue.class)];
+  }
+
+  /**
+   * Returns a Boolean value.
+   *
+   * @param name The value name.
+   * @return The value captured by this snapshot.
+   * @throws IllegalArgumentException If the group does not contain a {@link BooleanValue} with the
+   *     specified name.
+   */
+  public boolean getBoolean(String name) {
+    return booleans[slotOf(name, BooleanValue.class)];
+  }
+
+  /**
+   * Returns a floating-point value.
+   *
+   * @param name The value name.
+   * @return The value captured by this snapshot.
+   * @throws IllegalArgumentException If the group does not contain a {@link DoubleValue} with the
+   *     specified name.
+   */
+  public double getDouble(String name) {
+    return doubles[slotOf(name, DoubleValue.class)];
+  }
+
+  /**
+   * Returns an enum value.
+   *
+   * @param <E> The enum type.
+   * @param name The value name.
+   * @param type The enum class.
+   * @return The value captured by this snapshot.
+   * @throws IllegalArgumentException If the group does not contain an {@link EnumValue} of the
+   *     specified type with the specified name.
+   */
+  public <E extends Enum<E>> E getEnum(String name, Class<E> type) {
+    Object value = objects[slotOf(name, EnumValue.class)];
+
+    if (!type.isInstance(value)) {
+      throw new IllegalArgumentException(
+          "Value " + group + "/" + name + " is not of type " + type.getName());
+    }
+
+    return type.cast(value);
+  }
+
+  /**
+   * Returns the interpolated value of a key in a lookup table.
+   *
+   * @param name The value name.
+   * @param key The key to look up.
+   * @return The interpolated value of the key in the table captured by this snapshot.
+   * @throws IllegalArgumentException If the group does not contain an {@link
+   *     InterpolatingTableValue} with the specified name.
+   */
+  public double getTableValue(String name, double key) {
+    int slot = slotOf(name, InterpolatingTableValue.class);
+    Interpolation interpolation = ((InterpolatingTableValue) values[slot]).getInterpolation();
+
+    return ((Table) objects[slot]).interpolate(key, interpolation);
+  }
+
+  /**
+   * Returns the index of a value in the snapshot arrays.
+   *
+   * @param name The value name.
+   * @param type The expected type of value.
+   * @return The index of the value.
+   * @throws IllegalArgumentException If the group does not contain a value of the expected type
+   *     with the specified name.
+   */
+  private int slotOf(String name, Class<? extends Value> type) {
+    Integer slot = slots.get(name);
+
+    if (slot == null || !type.isInstance(values[slot])) {
+      throw new IllegalArgumentException(
+          "Group " + group + " has no " + type.getSimpleName() + " named " + name);
+    }
+
+    return slot;
+  }
+}
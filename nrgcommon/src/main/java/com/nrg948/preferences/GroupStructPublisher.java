@@ -0,0 +1,278 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import com.nrg948.preferences.RobotPreferences.BooleanValue;
+import com.nrg948.preferences.RobotPreferences.DoubleValue;
+import com.nrg948.preferences.RobotPreferences.EnumValue;
+import com.nrg948.preferences.RobotPreferences.IValueVisitor;
+import com.nrg948.preferences.RobotPreferences.StringValue;
+import com.nrg948.preferences.RobotPreferences.Value;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.RawPublisher;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Publishes the values of a preferences group as a single NetworkTables struct topic.
+ *
+ * <p>A struct schema is generated from the boolean, double and enum values in the group and
+ * registered with NetworkTables. Whenever one of these values changes, all of them are encoded
+ * into one message, so dashboards and data logs receive a consistent copy of the group in a single
+ * update. String and interpolating table values have no fixed size and are not included, and groups
+ * without any other values are not published. Group and value names that map to the same struct
+ * identifier are made unique by appending a number. Since the version of a value only changes on
+ * dashboard edits when cached reads are enabled, struct topics require cached reads.
+ *
+ * <p>The values are encoded in little-endian byte order into a buffer allocated when the publisher
+ * is created, so publishing a change does not allocate memory.
+ */
+final class GroupStructPublisher implements IValueVisitor {
+  /** The name of the NetworkTables table containing the group struct topics. */
+  static final String kStructTableName = "PreferencesStructs";
+
+  private final String group;
+  private final Value[] values;
+  private final ByteBuffer buffer;
+  private final RawPublisher publisher;
+  private long publishedVersion = -1;
+
+  /**
+   * Creates a publisher for a group and registers the struct schema.
+   *
+   * @param group The group name.
+   * @param groupValues The values in the group.
+   * @param typeIdentifiers The struct type identifiers used by the other groups. The identifier of
+   *     this group is added to it.
+   * @return The publisher, or an empty Optional if the group has no values that can be encoded in
+   *     a struct.
+   */
+  static Optional<GroupStructPublisher> create(
+      String group, Value[] groupValues, Set<String> typeIdentifiers) {
+    SchemaBuilder schema = new SchemaBuilder();
+
+    for (Value value : groupValues) {
+      value.accept(schema);
+    }
+
+    if (schema.fields.isEmpty()) {
+      return Optional.empty();
+    }
+
+    String typeName = "struct:RobotPreferences_" + toUniqueIdentifier(group, typeIdentifiers);
+
+    return Optional.of(new GroupStructPublisher(group, typeName, schema));
+  }
+
+  /**
+   * Constructs a publisher for a group and registers the struct schema.
+   *
+   * @param group The group name.
+   * @param typeName The struct type name of the group.
+   * @param schema The schema of the values in the group.
+   */
+  private GroupStructPublisher(String group, String typeName, SchemaBuilder schema) {
+    NetworkTableInstance instance = NetworkTableInstance.getDefault();
+
+    instance.addSchema(typeName, "structschema", schema.toString());
+
+    this.group = group;
+    this.values = schema.fields.toArray(new Value[0]);
+    this.buffer = ByteBuffer.allocate(schema.size).order(ByteOrder.LITTLE_ENDIAN);
+    this.publisher = instance.getRawTopic("/" + kStructTableName + "/" + group).publish(typeName);
+  }
+
+  /**
+   * Returns the group name.
+   *
+   * @return The group name.
+   */
+  String getGroup() {
+    return group;
+  }
+
+  /**
+   * Publishes the values in the group if any of them changed since they were last published.
+   *
+   * @return Whether the values were published.
+   */
+  boolean update() {
+    long version = 0;
+
+    for (Value value : values) {
+      version += value.version();
+    }
+
+    if (version == publishedVersion) {
+      return false;
+    }
+
+    buffer.clear();
+
+    for (Value value : values) {
+      value.accept(this);
+    }
+
+    publisher.set(buffer.array(), 0, buffer.position());
+    publishedVersion = version;
+
+    return true;
+  }
+
+  @Override
+  public void visit(StringValue value) {}
+
+  @Override
+  public void visit(BooleanValue value) {
+    buffer.put((byte) (value.getValue() ? 1 : 0));
+  }
+
+  @Override
+  public void visit(DoubleValue value) {
+    buffer.putDouble(value.getValue());
+  }
+
+  @Override
+  public <E extends Enum<E>> void visit(EnumValue<E> value) {
+    int ordinal = value.getValue().ordinal();
+
+    if (isSmallEnum(value)) {
+      buffer.put((byte) ordinal);
+    } else {
+      buffer.putInt(ordinal);
+    }
+  }
+
+  /** Returns whether the ordinals of an enum value's type fit in the int8 struct type. */
+  private static boolean isSmallEnum(EnumValue<?> value) {
+    return value.getDefaultValue().getDeclaringClass().getEnumConstants().length <= Byte.MAX_VALUE;
+  }
+
+  /** Replaces the characters that are not valid in a struct identifier with underscores. */
+  private static String toIdentifier(String name) {
+    String identifier = name.replaceAll("[^A-Za-z0-9_]", "_");
+
+    return Character.isDigit(identifier.charAt(0)) ? "_" + identifier : identifier;
+  }
+
+  /**
+   * Returns a struct identifier for a name that differs from the identifiers already used.
+   *
+   * <p>If the identifier of the name is already used, for example by "kP gain" and "kP_gain", a
+   * number is appended to it and a warning is printed.
+   *
+   * @param name The name.
+   * @param used The identifiers already used. The returned identifier is added to it.
+   * @return The unique identifier.
+   */
+  private static String toUniqueIdentifier(String name, Set<String> used) {
+    String identifier = toIdentifier(name);
+
+    if (!used.add(identifier)) {
+      String base = identifier;
+      int suffix = 2;
+
+      while (!used.add(base + "_" + suffix)) {
+        suffix++;
+      }
+
+      identifier = base + "_" + suffix;
+      System.err.println(
+          "WARNING: The struct identifier for " + name + " is " + identifier + " to be unique.");
+    }
+
+    return identifier;
+  }
+
+  /** A Visitor that generates the struct schema of the values in a group. */
+  private static final class SchemaBuilder implements IValueVisitor {
+    private final StringBuilder schema = new StringBuilder();
+    private final List<Value> fields = new ArrayList<>();
+    private final Set<String> identifiers = new HashSet<>();
+    private int size;
+
+    @Override
+    public void visit(StringValue value) {}
+
+    @Override
+    public void visit(BooleanValue value) {
+      addField(value, "bool", 1);
+    }
+
+    @Override
+    public void visit(DoubleValue value) {
+      addField(value, "double", Double.BYTES);
+    }
+
+    @Override
+    public <E extends Enum<E>> void visit(EnumValue<E> value) {
+      StringBuilder type = new StringBuilder("enum {");
+      E[] constants = value.getDefaultValue().getDeclaringClass().getEnumConstants();
+      Set<String> constantIdentifiers = new HashSet<>();
+
+      for (E constant : constants) {
+        if (constant.ordinal() > 0) {
+          type.append(", ");
+        }
+
+        type.append(toUniqueIdentifier(constant.name(), constantIdentifiers))
+            .append('=')
+            .append(constant.ordinal());
+      }
+
+      if (isSmallEnum(value)) {
+        addField(value, type.append("} int8").toString(), 1);
+      } else {
+        addField(value, type.append("} int32").toString(), Integer.BYTES);
+      }
+    }
+
+    /**
+     * Adds a field to the schema.
+     *
+     * @param value The value stored in the field.
+     * @param type The struct type of the field.
+     * @param bytes The size of the field in bytes.
+     */
+    private void addField(Value value, String type, int bytes) {
+      if (!fields.isEmpty()) {
+        schema.append(';');
+      }
+
+      schema.append(type).append(' ').append(toUniqueIdentifier(value.getName(), identifiers));
+      fields.add(value);
+      size += bytes;
+    }
+
+    @Override
+    public String toString() {
+      return schema.toString();
+    }
+  }
+}
@@ -0,0 +1,519 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import com.nrg948.preferences.RobotPreferences.IValueVisitor;
+import com.nrg948.preferences.RobotPreferences.Value;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableType;
+import edu.wpi.first.networktables.NetworkTableValue;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * A class representing a lookup table in the preferences store whose values are interpolated
+ * between its keys.
+ *
+ * <p>This is useful for tuning a mapping such as shooter speed versus distance to the target. The
+ * table is stored under a single preferences key as an array of alternating keys and values
+ * (<code>[k0, v0, k1, v1, ...]</code>) sorted by key. In Shuffleboard, the table is edited as text
+ * in the form <code>k0:v0, k1:v1, ...</code>.
+ *
+ * <p>Lookups use a binary search followed by linear or cubic interpolation. Keys outside the range
+ * of the table return the value of the first or last key. When cached reads are enabled, lookups
+ * do not allocate memory.
+ */
+public class InterpolatingTableValue extends Value {
+
+  /** The method used to interpolate between the keys of the table. */
+  public enum Interpolation {
+    /** Linear interpolation between adjacent keys. */
+    LINEAR,
+
+    /**
+     * Cubic Hermite interpolation using the slopes between the neighboring keys as tangents. The
+     * interpolated values are smooth but may overshoot the values of the adjacent keys.
+     */
+    CUBIC
+  }
+
+  /** An immutable lookup table with keys sorted in ascending order. */
+  static final class Table {
+    private final double[] keys;
+    private final double[] values;
+    private final double[] tangents;
+
+    /**
+     * Constructs a table from key and value arrays.
+     *
+     * @param keys The keys. The array is copied.
+     * @param values The values of the keys. The array is copied.
+     * @throws IllegalArgumentException If the arrays are empty or have different lengths, or if
+     *     the keys are not distinct finite numbers.
+     */
+    Table(double[] keys, double[] values) {
+      if (keys.length == 0 || keys.length != values.length) {
+        throw new IllegalArgumentException(
+            "The keys and values must be non-empty arrays of the same length");
+      }
+
+      int[] order =
+          IntStream.range(0, keys.length)
+              .boxed()
+              .sorted(Comparator.comparingDouble(i -> keys[i]))
+              .mapToInt(i -> i)
+              .toArray();
+
+      this.keys = new double[keys.length];
+      this.values = new double[keys.length];
+
+      for (int i = 0; i < order.length; i++) {
+        this.keys[i] = keys[order[i]];
+        this.values[i] = values[order[i]];
+
+        if (!Double.isFinite(this.keys[i]) || (i > 0 && this.keys[i] == this.keys[i - 1])) {
+          throw new IllegalArgumentException("The keys must be distinct finite numbers");
+        }
+      }
+
+      this.tangents = computeTangents(this.keys, this.values);
+    }
+
+    /**
+     * Constructs a table from an array of alternating keys and values.
+     *
+     * @param pairs The array of alternating keys and values.
+     * @return The table.
+     * @throws IllegalArgumentException If the array is not a valid table.
+     */
+    static Table fromArray(double[] pairs) {
+      if (pairs.length % 2 != 0) {
+        throw new IllegalArgumentException("The table must contain key and value pairs");
+      }
+
+      double[] keys = new double[pairs.length / 2];
+      double[] values = new double[pairs.length / 2];
+
+      for (int i = 0; i < keys.length; i++) {
+        keys[i] = pairs[2 * i];
+        values[i] = pairs[2 * i + 1];
+      }
+
+      return new Table(keys, values);
+    }
+
+    /**
+     * Constructs a table from its text representation.
+     *
+     * @param text The text in the form <code>k0:v0, k1:v1, ...</code>.
+     * @return The table.
+     * @throws IllegalArgumentException If the text is not a valid table.
+     */
+    static Table fromText(String text) {
+      String[] entries = text.split(",");
+      double[] keys = new double[entries.length];
+      double[] values = new double[entries.length];
+
+      for (int i = 0; i < entries.length; i++) {
+        String[] pair = entries[i].split(":");
+
+        if (pair.length != 2) {
+          throw new IllegalArgumentException("Invalid table entry: " + entries[i].trim());
+        }
+
+        keys[i] = Double.parseDouble(pair[0].trim());
+        values[i] = Double.parseDouble(pair[1].trim());
+      }
+
+      return new Table(keys, values);
+    }
+
+    /** Returns the table as an array of alternating keys and values. */
+    double[] toArray() {
+      double[] pairs = new double[keys.length * 2];
+
+      for (int i = 0; i < keys.length; i++) {
+        pairs[2 * i] = keys[i];
+        pairs[2 * i + 1] = values[i];
+      }
+
+      return pairs;
+    }
+
+    /** Returns the text representation of the table. */
+    String toText() {
+      StringBuilder text = new StringBuilder();
+
+      for (int i = 0; i < keys.length; i++) {
+        if (i > 0) {
+          text.append(", ");
+        }
+
+        text.append(keys[i]).append(':').append(values[i]);
+      }
+
+      return text.toString();
+    }
+
+    /**
+     * Returns the interpolated value of a key.
+     *
+     * @param key The key.
+     * @param interpolation The interpolation method.
+     * @return The interpolated value.
+     */
+    double interpolate(double key, Interpolation interpolation) {
+      int last = keys.length - 1;
+
+      if (!(key > keys[0])) {
+        return values[0];
+      }
+
+      if (key >= keys[last]) {
+        return values[last];
+      }
+
+      int index = Arrays.binarySearch(keys, key);
+
+      if (index >= 0) {
+        return values[index];
+      }
+
+      int hi = -index - 1;
+      int lo = hi - 1;
+      double h = keys[hi] - keys[lo];
+      double t = (key - keys[lo]) / h;
+
+      if (interpolation == Interpolation.LINEAR) {
+        return values[lo] + t * (values[hi] - values[lo]);
+      }
+
+      double t2 = t * t;
+      double t3 = t2 * t;
+
+      return (2 * t3 - 3 * t2 + 1) * values[lo]
+          + (t3 - 2 * t2 + t) * h * tangents[lo]
+          + (-2 * t3 + 3 * t2) * values[hi]
+          + (t3 - t2) * h * tangents[hi];
+    }
+
+    /** Returns the tangents at each key used by cubic interpolation. */
+    private static double[] computeTangents(double[] keys, double[] values) {
+      int last = keys.length - 1;
+      double[] tangents = new double[keys.length];
+
+      if (last > 0) {
+        tangents[0] = (values[1] - values[0]) / (keys[1] - keys[0]);
+        tangents[last] = (values[last] - values[last - 1]) / (keys[last] - keys[last - 1]);
+
+        for (int i = 1; i < last; i++) {
+          tangents[i] = (values[i + 1] - values[i - 1]) / (keys[i + 1] - keys[i - 1]);
+        }
+      }
+
+      return tangents;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Table
+          && Arrays.equals(keys, ((Table) obj).keys)
+          && Arrays.equals(values, ((Table) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+    }
+  }
+
+  /** A stored array and the table converted from it. */
+  private record StoredTable(double[] array, Table table) {}
+
+  private final Interpolation interpolation;
+  private final Table defaultTable;
+  private volatile Table cachedTable;
+  private volatile StoredTable lastStoredTable;
+  private volatile double[] invalidArray;
+
+  /**
+   * Constructs an instance of this class using linear interpolation.
+   *
+   * @param group The preference value's group name. This is usually the subsystem or class that
+   *     uses the value.
+   * @param name The preferences value name.
+   * @param defaultKeys The keys of the table supplied when the preference does not exist in the
+   *     preferences store.
+   * @param defaultValues The values of the default keys.
+   * @throws IllegalArgumentException If the default keys and values are not a valid table.
+   */
+  public InterpolatingTableValue(
+      String group, String name, double[] defaultKeys, double[] defaultValues) {
+    this(group, name, defaultKeys, defaultValues, Interpolation.LINEAR);
+  }
+
+  /**
+   * Constructs an instance of this class.
+   *
+   * @param group The preference value's group name. This is usually the subsystem or class that
+   *     uses the value.
+   * @param name The preferences value name.
+   * @param defaultKeys The keys of the table supplied when the preference does not exist in the
+   *     preferences store.
+   * @param defaultValues The values of the default keys.
+   * @param interpolation The method used to interpolate between the keys of the table.
+   * @throws IllegalArgumentException If the default keys and values are not a valid table.
+   */
+  public InterpolatingTableValue(
+      String group,
+      String name,
+      double[] defaultKeys,
+      double[] defaultValues,
+      Interpolation interpolation) {
+    super(group, name);
+    this.interpolation = interpolation;
+    this.defaultTable = new Table(defaultKeys, defaultValues);
+  }
+
+  /**
+   * Returns the interpolation method.
+   *
+   * @return The interpolation method.
+   */
+  public Interpolation getInterpolation() {
+    return interpolation;
+  }
+
+  /**
+   * Returns the keys of the default table.
+   *
+   * @return The keys of the default table in ascending order.
+   */
+  public double[] getDefaultKeys() {
+    return defaultTable.keys.clone();
+  }
+
+  /**
+   * Returns the values of the default table.
+   *
+   * @return The values of the default table in the order of the keys.
+   */
+  public double[] getDefaultValues() {
+    return defaultTable.values.clone();
+  }
+
+  /**
+   * Returns the keys of the current table.
+   *
+   * @return The keys of the current table in ascending order.
+   */
+  public double[] getKeys() {
+    return getTable().keys.clone();
+  }
+
+  /**
+   * Returns the values of the current table.
+   *
+   * @return The values of the current table in the order of the keys.
+   */
+  public double[] getValues() {
+    return getTable().values.clone();
+  }
+
+  /**
+   * Returns the interpolated value of a key in the current table.
+   *
+   * @param key The key to look up.
+   * @return The interpolated value of the key.
+   */
+  public double getValue(double key) {
+    return getTable().interpolate(key, interpolation);
+  }
+
+  /**
+   * Sets the current table.
+   *
+   * @param keys The keys of the table.
+   * @param values The values of the keys.
+   * @throws IllegalArgumentException If the keys and values are not a valid table.
+   */
+  public void setValue(double[] keys, double[] values) {
+    setTable(new Table(keys, values));
+  }
+
+  /**
+   * Sets the current table from its text representation.
+   *
+   * <p>Invalid text is reported and ignored.
+   *
+   * @param text The text in the form <code>k0:v0, k1:v1, ...</code>.
+   */
+  void setText(String text) {
+    try {
+      setTable(Table.fromText(text));
+    } catch (IllegalArgumentException e) {
+      System.err.println("WARNING: Invalid table for " + key + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the text representation of the current table.
+   *
+   * @return The text in the form <code>k0:v0, k1:v1, ...</code>.
+   */
+  String getText() {
+    return getTable().toText();
+  }
+
+  /**
+   * Returns the text representation of the default table.
+   *
+   * @return The text in the form <code>k0:v0, k1:v1, ...</code>.
+   */
+  String getDefaultText() {
+    return defaultTable.toText();
+  }
+
+  /**
+   * Returns whether the current table is the default table.
+   *
+   * @return Whether the current table is the default table.
+   */
+  boolean isDefault() {
+    return getTable().equals(defaultTable);
+  }
+
+  /** Sets the default table as the current table. */
+  void setDefault() {
+    setTable(defaultTable);
+  }
+
+  /** Returns the current table. */
+  Table getTable() {
+    return isCached() ? cachedTable : toTable(getPreferencesEntry().getValue());
+  }
+
+  /** Sets the current table. */
+  private void setTable(Table table) {
+    boolean changed;
+
+    if (isCached()) {
+      synchronized (this) {
+        changed = !table.equals(cachedTable);
+        cachedTable = table;
+        persist();
+      }
+    } else {
+      NetworkTableEntry entry = getPreferencesEntry();
+
+      changed = !table.equals(toTable(entry.getValue()));
+      writeTable(entry, table);
+    }
+
+    if (changed) {
+      markChanged();
+    }
+  }
+
+  @Override
+  protected void persist() {
+    getEntry().setDoubleArray(cachedTable.toArray(), stampWrite());
+  }
+
+  /** Writes a table to an entry in the preferences table and marks it persistent. */
+  private static void writeTable(NetworkTableEntry entry, Table table) {
+    entry.setDoubleArray(table.toArray());
+    entry.setPersistent();
+  }
+
+  /** Returns the entry of this value in the preferences table. */
+  private NetworkTableEntry getPreferencesEntry() {
+    if (isCached()) {
+      return getEntry();
+    }
+
+    return NetworkTableInstance.getDefault()
+        .getTable(RobotPreferences.kPreferencesTableName)
+        .getEntry(key);
+  }
+
+  /**
+   * Converts a value in the preferences store to a table.
+   *
+   * <p>The most recently converted array is remembered, so reading an unchanged value does not
+   * build a new table, and a warning is printed only once for each distinct invalid array.
+   *
+   * @param value The value in the preferences store, or null if the value was removed.
+   * @return The table, or the default table if the value is missing or invalid.
+   */
+  private Table toTable(NetworkTableValue value) {
+    if (value == null || value.getType() != NetworkTableType.kDoubleArray) {
+      return defaultTable;
+    }
+
+    double[] array = value.getDoubleArray();
+    StoredTable stored = lastStoredTable;
+
+    if (stored != null && Arrays.equals(array, stored.array())) {
+      return stored.table();
+    }
+
+    Table table;
+
+    try {
+      table = Table.fromArray(array);
+    } catch (IllegalArgumentException e) {
+      if (!Arrays.equals(array, invalidArray)) {
+        invalidArray = array;
+        System.err.println("WARNING: Invalid table for " + key + ": " + e.getMessage());
+      }
+
+      table = defaultTable;
+    }
+
+    lastStoredTable = new StoredTable(array, table);
+
+    return table;
+  }
+
+  @Override
+  protected boolean updateCache(NetworkTableValue value) {
+    Table newTable = toTable(value);
+
+    if (newTable.equals(cachedTable)) {
+      return false;
+    }
+
+    cachedTable = newTable;
+
+    return true;
+  }
+
+  @Override
+  public void accept(IValueVisitor visitor) {
+    visitor.visit(this);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue supporting multiple producer threads and a single consumer thread.
+ *
+ * <p>Each slot carries a sequence number recording whether it is free for the producer claiming
+ * a position or holds an element published for the consumer. Producers claim positions with a
+ * single compare-and-set on the tail counter and never wait on each other or on the consumer.
+ * When the queue is full, {@link #offer(Object)} fails instead of blocking.
+ *
+ * @param <E> The type of the elements.
+ */
+final class MpscRingBuffer<E> {
+  private final int capacity;
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+
+  /** The next position to be claimed by a producer. */
+  private final AtomicLong tail = new AtomicLong();
+
+  /** The next position to be read by the consumer. Only accessed by the consumer thread. */
+  private long head;
+
+  /**
+   * Constructs a queue.
+   *
+   * @param capacity The maximum number of elements. It is rounded up to a power of two.
+   */
+  MpscRingBuffer(int capacity) {
+    if (capacity <= 0 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+    }
+
+    int size = Integer.highestOneBit(capacity);
+
+    this.capacity = size < capacity ? size << 1 : size;
+    this.mask = this.capacity - 1;
+    this.elements = new AtomicReferenceArray<>(this.capacity);
+    this.sequences = new AtomicLongArray(this.capacity);
+
+    for (int i = 0; i < this.capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * Returns the maximum number of elements.
+   *
+   * @return The capacity of the queue.
+   */
+  int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Adds an element to the queue. May be called from any thread.
+   *
+   * @param element The element to add.
+   * @return Whether the element was added. False is returned if the queue is full.
+   */
+  boolean offer(E element) {
+    long position = tail.get();
+
+    while (true) {
+      int index = (int) position & mask;
+      long available = sequences.get(index) - position;
+
+      if (available == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.set(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+
+        position = tail.get();
+      } else if (available < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Removes the element at the head of the queue. Must only be called from the consumer thread.
+   *
+   * @return The element at the head of the queue, or null if no element has been published.
+   */
+  E poll() {
+    int index = (int) head & mask;
+
+    if (sequences.get(index) != head + 1) {
+      return null;
+    }
+
+    E element = elements.get(index);
+
+    elements.set(index, null);
+    sequences.set(index, head + capacity);
+    head++;
+
+    return element;
+  }
+
+  /**
+   * Returns the approximate number of elements in the queue.
+   *
+   * @return The number of claimed positions not yet read by the consumer.
+   */
+  int size() {
+    return (int) Math.max(0, Math.min(tail.get() - head, capacity));
+  }
+}
@@ -0,0 +1,180 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import com.nrg948.annotations.Annotations;
+import com.nrg948.preferences.RobotPreferences.Value;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An index of the preferences values annotated with {@link RobotPreferencesValue}.
+ *
+ * <p>The annotated fields are read once when the registry is built. Afterwards, values are found
+ * by key or group without reflection.
+ */
+final class PreferencesRegistry {
+  private static final Value[] NO_VALUES = new Value[0];
+
+  private final Value[] values;
+  private final Map<String, Value> valuesByKey;
+  private final Map<String, Value[]> valuesByGroup;
+  private final Map<Value, RobotPreferencesValue> metadata;
+
+  /**
+   * Constructs a registry.
+   *
+   * @param values The values in the order their fields were found.
+   * @param metadata The annotation of the field containing each value.
+   */
+  private PreferencesRegistry(List<Value> values, Map<Value, RobotPreferencesValue> metadata) {
+    Map<String, Value> valuesByKey = new HashMap<>();
+    Map<String, List<Value>> groups = new LinkedHashMap<>();
+
+    for (Value value : values) {
+      valuesByKey.put(value.getKey(), value);
+      groups.computeIfAbsent(value.getGroup(), g -> new ArrayList<>()).add(value);
+    }
+
+    Map<String, Value[]> valuesByGroup = new LinkedHashMap<>();
+
+    groups.forEach((group, list) -> valuesByGroup.put(group, list.toArray(NO_VALUES)));
+
+    this.values = values.toArray(NO_VALUES);
+    this.valuesByKey = valuesByKey;
+    this.valuesByGroup = Collections.unmodifiableMap(valuesByGroup);
+    this.metadata = metadata;
+  }
+
+  /**
+   * Builds a registry from the static fields annotated with {@link RobotPreferencesValue}.
+   *
+   * <p>If more than one value has the same key, only the first is registered and a warning is
+   * printed.
+   *
+   * @return The registry.
+   */
+  static PreferencesRegistry build() {
+    List<Value> values = new ArrayList<>();
+    Map<String, Value> keys = new HashMap<>();
+    Map<Value, RobotPreferencesValue> metadata = new IdentityHashMap<>();
+
+    for (Field field : Annotations.getAnnotatedFields(RobotPreferencesValue.class)) {
+      if (!Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+
+      Value value = getValue(field);
+
+      if (value == null || metadata.containsKey(value)) {
+        continue;
+      }
+
+      Value existing = keys.putIfAbsent(value.getKey(), value);
+
+      if (existing != null) {
+        System.err.println(
+            "WARNING: Preferences value "
+                + field.getDeclaringClass().getName()
+                + "."
+                + field.getName()
+                + " has the same key as another value: "
+                + value.getKey());
+        continue;
+      }
+
+      values.add(value);
+      metadata.put(value, field.getAnnotation(RobotPreferencesValue.class));
+    }
+
+    return new PreferencesRegistry(values, metadata);
+  }
+
+  /** Returns the value contained in a preferences field. */
+  private static Value getValue(Field field) {
+    try {
+      return (Value) field.get(null);
+    } catch (IllegalArgumentException | IllegalAccessException | ClassCastException e) {
+      e.printStackTrace();
+    }
+
+    return null;
+  }
+
+  /**
+   * Returns all values.
+   *
+   * @return The values. The array must not be modified.
+   */
+  Value[] getValues() {
+    return values;
+  }
+
+  /**
+   * Returns the value with the specified key.
+   *
+   * @param key The key.
+   * @return The value, or {@link Optional#empty()} if there is no value with the key.
+   */
+  Optional<Value> getValue(String key) {
+    return Optional.ofNullable(valuesByKey.get(key));
+  }
+
+  /**
+   * Returns the values in a group.
+   *
+   * @param group The group name.
+   * @return The values in the group. The array must not be modified.
+   */
+  Value[] getGroup(String group) {
+    return valuesByGroup.getOrDefault(group, NO_VALUES);
+  }
+
+  /**
+   * Returns the values of each group.
+   *
+   * @return An unmodifiable map of the values in each group by group name.
+   */
+  Map<String, Value[]> getGroups() {
+    return valuesByGroup;
+  }
+
+  /**
+   * Returns the annotation of the field containing a value.
+   *
+   * @param value The value.
+   * @return The annotation of the field containing the value.
+   */
+  RobotPreferencesValue getMetadata(Value value) {
+    return metadata.get(value);
+  }
+}
@@ -23,17 +23,19 @@
 */
 package com.nrg948.preferences;
 
-import static org.reflections.scanners.Scanners.FieldsAnnotated;
-import static org.reflections.scanners.Scanners.TypesAnnotated;
-
+import com.nrg948.StartupReport;
 import com.nrg948.annotations.Annotations;
-import edu.wpi.first.networktables.BooleanTopic;
-import edu.wpi.first.networktables.DoubleTopic;
 import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableEvent;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StringTopic;
+import edu.wpi.first.networktables.NetworkTableType;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.networktables.Topic;
+import edu.wpi.first.networktables.ValueEventData;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Preferences;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
@@ -44,14 +46,27 @@ import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardTab;
 import edu.wpi.first.wpilibj.shuffleboard.SimpleWidget;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import org.javatuples.Pair;
 
 /** A class to manage robot preferences. */
 public class RobotPreferences {
@@ -87,6 +102,15 @@ public class RobotPreferences {
      * @param value The {@link EnumValue} to visit.
      */
     <E extends Enum<E>> void visit(EnumValue<E> value);
+
+    /**
+     * Called to apply the visitor's effect on an {@link InterpolatingTableValue}.
+     *
+     * <p>The default implementation does nothing.
+     *
+     * @param value The {@link InterpolatingTableValue} to visit.
+     */
+    default void visit(InterpolatingTableValue value) {}
   }
 
   /** An abstract base class represented a keyed valued in the preferences store. */
@@ -101,6 +125,39 @@ public class RobotPreferences {
     /** The preferences value key. */
     protected final String key;
 
+    /** The entry of this value in the preferences table, or null if reads have not been cached. */
+    private NetworkTableEntry entry;
+
+    /** The handle of the listener updating the cached value, or 0 if reads are not cached. */
+    private volatile int listenerHandle;
+
+    /** Whether the listener has initialized the cached value. */
+    private volatile boolean cacheValid;
+
+    /** The NetworkTables time of the cached value. Guarded by the lock of this value. */
+    private long cacheTime;
+
+    /** Whether the entry has been marked persistent since it was created or last removed. */
+    private volatile boolean persistent;
+
+    /** The number of times this value has changed. */
+    private final AtomicLong version = new AtomicLong();
+
+    /** The listeners notified when this value changes. */
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
+
+    /** Whether a change notification is waiting to be dispatched by {@link #poll()}. */
+    private final AtomicBoolean changePending = new AtomicBoolean();
+
+    /** Whether marking the entry persistent is waiting for the write-behind quiet period. */
+    private final AtomicBoolean persistPending = new AtomicBoolean();
+
+    /** The number of Shuffleboard updates written to this value. */
+    private final AtomicLong appliedUpdates = new AtomicLong();
+
+    /** The number of Shuffleboard updates skipped because they matched the current value. */
+    private final AtomicLong suppressedUpdates = new AtomicLong();
+
     /**
      * Constructs an instance of this class.
      *
@@ -152,6 +209,270 @@ public class RobotPreferences {
       return Preferences.containsKey(key);
     }
 
+    /**
+     * Returns the number of times this value has changed.
+     *
+     * <p>The version is incremented whenever the value is set to a different value, either by
+     * calling <code>setValue</code> or from the Shuffleboard tab, and, when cached reads are
+     * enabled, whenever a different value is written directly to the preferences store. Code
+     * that only needs to react to changes can compare the version to the one it last saw instead
+     * of comparing values.
+     *
+     * @return The number of times this value has changed.
+     */
+    public long version() {
+      return version.get();
+    }
+
+    /**
+     * Adds a listener that is called when this value changes.
+     *
+     * <p>Listeners are called on the thread calling {@link RobotPreferences#poll()}, which is
+     * normally the main robot thread. Changes are coalesced, so a listener is called at most once
+     * per call to {@link RobotPreferences#poll()} no matter how many times the value changed since
+     * the previous call.
+     *
+     * @param listener The listener to add.
+     */
+    public void addChangeListener(Runnable listener) {
+      changeListeners.add(Objects.requireNonNull(listener));
+    }
+
+    /**
+     * Removes a listener added by {@link #addChangeListener(Runnable)}.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeChangeListener(Runnable listener) {
+      changeListeners.remove(listener);
+    }
+
+    /**
+     * Records a change to this value.
+     *
+     * <p>Increments the version and, if there are change listeners, queues a single change
+     * notification to be dispatched by {@link RobotPreferences#poll()}.
+     */
+    protected final void markChanged() {
+      version.incrementAndGet();
+
+      if (!changeListeners.isEmpty() && changePending.compareAndSet(false, true)) {
+        changedValues.add(this);
+      }
+    }
+
+    /**
+     * Returns the number of updates from the Shuffleboard tab written to this value.
+     *
+     * @return The number of applied updates.
+     */
+    public long getAppliedUpdates() {
+      return appliedUpdates.get();
+    }
+
+    /**
+     * Returns the number of updates from the Shuffleboard tab that were skipped because they
+     * matched the current value.
+     *
+     * @return The number of suppressed updates.
+     */
+    public long getSuppressedUpdates() {
+      return suppressedUpdates.get();
+    }
+
+    /**
+     * Records the outcome of an update from the Shuffleboard tab.
+     *
+     * @param applied Whether the update was written to this value.
+     */
+    private void recordUpdate(boolean applied) {
+      (applied ? appliedUpdates : suppressedUpdates).incrementAndGet();
+    }
+
+    /** Calls the change listeners. */
+    private void notifyChangeListeners() {
+      changePending.set(false);
+
+      for (Runnable listener : changeListeners) {
+        try {
+          listener.run();
+        } catch (RuntimeException e) {
+          System.err.println("WARNING: Change listener for " + key + " failed");
+          e.printStackTrace();
+        }
+      }
+    }
+
+    /**
+     * Returns whether reads of this value are served from a cached value kept up to date by a
+     * NetworkTables listener.
+     *
+     * <p>When cached reads are enabled by {@link RobotPreferences#setCachedReads(boolean)}, the
+     * first call attaches the listener. The listener reports the current value immediately, on the
+     * listener thread, and initializes the cached value through {@link
+     * #updateCache(NetworkTableValue)}. Until then, and for as long as the value does not exist in
+     * the preferences store, this method returns false and the value is read from the store.
+     * Subclasses that support cached reads call this method from their <code>getValue</code>
+     * method.
+     *
+     * @return Whether reads of this value are served from the cached value.
+     */
+    protected final boolean isCached() {
+      if (cacheValid) {
+        return true;
+      }
+
+      if (listenerHandle == 0 && cachedReads) {
+        attachListener();
+      }
+
+      return false;
+    }
+
+    /**
+     * Updates the cached value from the value in the preferences store.
+     *
+     * <p>The default implementation does nothing. Subclasses that call {@link #isCached()} must
+     * override this method.
+     *
+     * @param value The value in the preferences store, or null if the value was removed.
+     * @return Whether the cached value changed.
+     */
+    protected boolean updateCache(NetworkTableValue value) {
+      return false;
+    }
+
+    /**
+     * Writes the cached value to the preferences store.
+     *
+     * <p>The default implementation does nothing. Subclasses that call {@link #isCached()} must
+     * override this method and call it from <code>setValue</code> after updating the cached value.
+     */
+    protected void persist() {}
+
+    /**
+     * Returns the entry of this value in the preferences table.
+     *
+     * <p>The entry is available once {@link #isCached()} returns true. Writing through the entry
+     * avoids the string-keyed lookup done by the {@link Preferences} methods.
+     *
+     * @return The entry of this value in the preferences table.
+     */
+    protected final NetworkTableEntry getEntry() {
+      return entry;
+    }
+
+    /**
+     * Prepares the entry for a write of the cached value and returns the time to write it with.
+     *
+     * <p>The entry is marked persistent on the first write after it is created or removed, rather
+     * than on every write. When write-behind persistence is enabled by {@link
+     * RobotPreferences#setPersistQuietPeriod(double)}, the entry is instead kept non-persistent
+     * until {@link #poll()} persists it, so that the preferences file is not saved on every write.
+     * The returned time becomes the time of the cached value, so that the listener ignores the
+     * echoes of this and earlier writes, which would otherwise overwrite a newer cached value.
+     * Subclasses call this method from {@link #persist()} while holding the lock of this value.
+     *
+     * @return The time to write the cached value with.
+     */
+    protected final synchronized long stampWrite() {
+      if (persistQuietPeriodNanos > 0) {
+        lastDeferredWriteNanos = System.nanoTime();
+
+        if (persistPending.compareAndSet(false, true)) {
+          entry.clearPersistent();
+          persistent = false;
+          pendingPersists.add(this);
+        }
+      } else if (!persistent) {
+        entry.setPersistent();
+        persistent = true;
+      }
+
+      cacheTime = NetworkTablesJNI.now();
+
+      return cacheTime;
+    }
+
+    /** Marks the entry persistent if it was deferred by write-behind persistence. */
+    private synchronized void persistIfPending() {
+      if (persistPending.getAndSet(false) && listenerHandle != 0 && !persistent) {
+        entry.setPersistent();
+        persistent = true;
+      }
+    }
+
+    /** Attaches a listener updating the cached value when the preferences store changes. */
+    private synchronized void attachListener() {
+      if (listenerHandle == 0) {
+        NetworkTableInstance ntInstance = NetworkTableInstance.getDefault();
+
+        entry = ntInstance.getTable(kPreferencesTableName).getEntry(key);
+
+        // The current value is delivered by the listener as an immediate event rather than read
+        // here, so that no update can be missed between reading the value and adding the listener.
+        listenerHandle =
+            ntInstance.addListener(
+                entry,
+                EnumSet.of(
+                    NetworkTableEvent.Kind.kImmediate,
+                    NetworkTableEvent.Kind.kValueAll,
+                    NetworkTableEvent.Kind.kUnpublish),
+                (event) -> {
+                  NetworkTableValue value = event.valueData != null ? event.valueData.value : null;
+                  boolean changed;
+
+                  synchronized (this) {
+                    if (event.is(NetworkTableEvent.Kind.kUnpublish)) {
+                      // The key may have been written again since it was removed, for example
+                      // by setValue right after Preferences.removeAll(), so the current value of
+                      // the entry is used rather than assuming the key is gone. Removing the key
+                      // cleared the persistent flag, which is restored if the key still exists.
+                      NetworkTableValue current = entry.getValue();
+
+                      value = current.isValid() ? current : null;
+                      persistent = value != null;
+
+                      if (persistent) {
+                        entry.setPersistent();
+                      }
+                    }
+
+                    // Values no newer than the cached value are echoes of writes through the
+                    // entry, which are already reflected in the cached value.
+                    if (value != null && cacheValid && value.getTime() <= cacheTime) {
+                      return;
+                    }
+
+                    changed = updateCache(value) && cacheValid;
+
+                    if (value != null) {
+                      cacheTime = value.getTime();
+                    }
+
+                    cacheValid = true;
+                  }
+
+                  if (changed) {
+                    markChanged();
+                  }
+                });
+
+        cachedValues.add(this);
+      }
+    }
+
+    /** Detaches the listener updating the cached value. */
+    private synchronized void detachListener() {
+      if (listenerHandle != 0) {
+        persistIfPending();
+        cacheValid = false;
+        NetworkTableInstance.getDefault().removeListener(listenerHandle);
+        listenerHandle = 0;
+        cachedValues.remove(this);
+      }
+    }
+
     /**
      * Accepts a visitor that operates on this value.
      *
@@ -164,6 +485,7 @@ public class RobotPreferences {
   public static class StringValue extends Value {
 
     private final String defaultValue;
+    private volatile String cachedValue;
 
     /**
      * Constructs an instance of this class.
@@ -194,7 +516,7 @@ public class RobotPreferences {
      * @return The current value.
      */
     public String getValue() {
-      return Preferences.getString(key, defaultValue);
+      return isCached() ? cachedValue : Preferences.getString(key, defaultValue);
     }
 
     /**
@@ -203,7 +525,43 @@ public class RobotPreferences {
      * @param value The value to set.
      */
     public void setValue(String value) {
-      Preferences.setString(key, value);
+      boolean changed;
+
+      if (isCached()) {
+        synchronized (this) {
+          changed = !Objects.equals(value, cachedValue);
+          cachedValue = value;
+          persist();
+        }
+      } else {
+        changed = !Objects.equals(value, Preferences.getString(key, defaultValue));
+        Preferences.setString(key, value);
+      }
+
+      if (changed) {
+        markChanged();
+      }
+    }
+
+    @Override
+    protected void persist() {
+      getEntry().setString(cachedValue, stampWrite());
+    }
+
+    @Override
+    protected boolean updateCache(NetworkTableValue value) {
+      String newValue =
+          value != null && value.getType() == NetworkTableType.kString
+              ? value.getString()
+              : defaultValue;
+
+      if (Objects.equals(newValue, cachedValue)) {
+        return false;
+      }
+
+      cachedValue = newValue;
+
+      return true;
     }
 
     @Override
@@ -216,6 +574,7 @@ public class RobotPreferences {
   public static class BooleanValue extends Value {
 
     private final boolean defaultValue;
+    private volatile boolean cachedValue;
 
     /**
      * Constructs an instance of this class.
@@ -246,7 +605,31 @@ public class RobotPreferences {
      * @return The current value.
      */
     public boolean getValue() {
-      return Preferences.getBoolean(key, defaultValue);
+      return isCached() ? cachedValue : Preferences.getBoolean(key, defaultValue);
+    }
+
+    /**
+     * Sets the current value.
+     *
+     * @param value The value to set.
+     */
+    public void setValue(boolean value) {
+      boolean changed;
+
+      if (isCached()) {
+        synchronized (this) {
+          changed = value != cachedValue;
+          cachedValue = value;
+          persist();
+        }
+      } else {
+        changed = value != Preferences.getBoolean(key, defaultValue);
+        Preferences.setBoolean(key, value);
+      }
+
+      if (changed) {
+        markChanged();
+      }
     }
 
     /**
@@ -255,7 +638,28 @@ public class RobotPreferences {
      * @param value The value to set.
      */
     public void setValue(Boolean value) {
-      Preferences.setBoolean(key, value);
+      setValue(value.booleanValue());
+    }
+
+    @Override
+    protected void persist() {
+      getEntry().setBoolean(cachedValue, stampWrite());
+    }
+
+    @Override
+    protected boolean updateCache(NetworkTableValue value) {
+      boolean newValue =
+          value != null && value.getType() == NetworkTableType.kBoolean
+              ? value.getBoolean()
+              : defaultValue;
+
+      if (newValue == cachedValue) {
+        return false;
+      }
+
+      cachedValue = newValue;
+
+      return true;
     }
 
     @Override
@@ -268,6 +672,7 @@ public class RobotPreferences {
   public static class DoubleValue extends Value {
 
     private final double defaultValue;
+    private volatile double cachedValue;
 
     /**
      * Constructs an instance of this class.
@@ -298,7 +703,7 @@ public class RobotPreferences {
      * @return The current value.
      */
     public double getValue() {
-      return Preferences.getDouble(key, defaultValue);
+      return isCached() ? cachedValue : Preferences.getDouble(key, defaultValue);
     }
 
     /**
@@ -307,7 +712,43 @@ public class RobotPreferences {
      * @param value The value to set.
      */
     public void setValue(double value) {
-      Preferences.setDouble(key, value);
+      boolean changed;
+
+      if (isCached()) {
+        synchronized (this) {
+          changed = value != cachedValue;
+          cachedValue = value;
+          persist();
+        }
+      } else {
+        changed = value != Preferences.getDouble(key, defaultValue);
+        Preferences.setDouble(key, value);
+      }
+
+      if (changed) {
+        markChanged();
+      }
+    }
+
+    @Override
+    protected void persist() {
+      getEntry().setDouble(cachedValue, stampWrite());
+    }
+
+    @Override
+    protected boolean updateCache(NetworkTableValue value) {
+      double newValue =
+          value != null && value.getType() == NetworkTableType.kDouble
+              ? value.getDouble()
+              : defaultValue;
+
+      if (newValue == cachedValue) {
+        return false;
+      }
+
+      cachedValue = newValue;
+
+      return true;
     }
 
     @Override
@@ -320,6 +761,9 @@ public class RobotPreferences {
   public static class EnumValue<E extends Enum<E>> extends Value {
 
     private final E defaultValue;
+    private final Map<String, E> constants;
+    private volatile E cachedValue;
+    private volatile String invalidValue;
 
     /**
      * Constructs an instance of this class.
@@ -333,6 +777,9 @@ public class RobotPreferences {
     public EnumValue(String group, String name, E defaultValue) {
       super(group, name);
       this.defaultValue = defaultValue;
+      this.constants =
+          Arrays.stream(defaultValue.getDeclaringClass().getEnumConstants())
+              .collect(Collectors.toUnmodifiableMap(Enum::name, e -> e));
     }
 
     /**
@@ -350,12 +797,7 @@ public class RobotPreferences {
      * @return The current value.
      */
     public E getValue() {
-      try {
-        return E.valueOf(
-            defaultValue.getDeclaringClass(), Preferences.getString(key, defaultValue.name()));
-      } catch (IllegalArgumentException e) {
-        return defaultValue;
-      }
+      return isCached() ? cachedValue : toEnum(Preferences.getString(key, defaultValue.name()));
     }
 
     /**
@@ -364,18 +806,103 @@ public class RobotPreferences {
      * @param value The value to set.
      */
     public void setValue(E value) {
-      Preferences.setString(key, value.name());
+      boolean changed;
+
+      if (isCached()) {
+        synchronized (this) {
+          changed = value != cachedValue;
+          cachedValue = value;
+          persist();
+        }
+      } else {
+        changed = !value.name().equals(Preferences.getString(key, defaultValue.name()));
+        Preferences.setString(key, value.name());
+      }
+
+      if (changed) {
+        markChanged();
+      }
     }
 
     /**
      * Sets the current value as a string.
      *
-     * @implNote No validation is done on the string value. If a string value that cannot be
-     *     converted to an value of the enum type, {@link getValue} will return the default value.
+     * @implNote No validation is done on the string value when cached reads are disabled. If a
+     *     string value that cannot be converted to an value of the enum type, {@link getValue} will
+     *     return the default value.
      * @param value The string value to set.
      */
     private void setValue(String value) {
-      Preferences.setString(key, value);
+      boolean changed;
+
+      if (isCached()) {
+        synchronized (this) {
+          E newValue = toEnum(value);
+
+          changed = newValue != cachedValue;
+          cachedValue = newValue;
+          persist();
+        }
+      } else {
+        changed = !Objects.equals(value, Preferences.getString(key, defaultValue.name()));
+        Preferences.setString(key, value);
+      }
+
+      if (changed) {
+        markChanged();
+      }
+    }
+
+    @Override
+    protected void persist() {
+      getEntry().setString(cachedValue.name(), stampWrite());
+    }
+
+    @Override
+    protected boolean updateCache(NetworkTableValue value) {
+      E newValue =
+          value != null && value.getType() == NetworkTableType.kString
+              ? toEnum(value.getString())
+              : defaultValue;
+
+      if (newValue == cachedValue) {
+        return false;
+      }
+
+      cachedValue = newValue;
+
+      return true;
+    }
+
+    /**
+     * Converts a string value to a value of the enum type.
+     *
+     * <p>A warning is printed the first time an invalid string value is seen. It is not repeated
+     * until a different invalid string value is seen.
+     *
+     * @param value The string value.
+     * @return The enum value with the specified name, or the default value if there is none.
+     */
+    private E toEnum(String value) {
+      E constant = value != null ? constants.get(value) : null;
+
+      if (constant == null) {
+        if (!Objects.equals(value, invalidValue)) {
+          invalidValue = value;
+          System.err.println(
+              "WARNING: Invalid value for "
+                  + key
+                  + ": "
+                  + value
+                  + ". Using the default value "
+                  + defaultValue.name()
+                  + ".");
+        }
+
+        return defaultValue;
+      }
+
+      return constant;
     }
 
     @Override
@@ -414,6 +941,12 @@ public class RobotPreferences {
       value.setValue(value.getDefaultValue());
       printMessage(value.getGroup(), value.getName(), value.getValue().name());
     }
+
+    @Override
+    public void visit(InterpolatingTableValue value) {
+      value.setDefault();
+      printMessage(value.getGroup(), value.getName(), value.getText());
+    }
   }
 
   /** A Visitor to print non default Values to the console. */
@@ -449,6 +982,13 @@ public class RobotPreferences {
         printMessage(value.getGroup(), value.getName(), value.getValue().name());
       }
     }
+
+    @Override
+    public void visit(InterpolatingTableValue value) {
+      if (!value.isDefault()) {
+        printMessage(value.getGroup(), value.getName(), value.getText());
+      }
+    }
   }
 
   /** A Visitor that adds widgets to the Shuffleboard preferences layout. */
@@ -479,13 +1019,19 @@ public class RobotPreferences {
 
       entry.setString(value.getValue());
 
-      StringTopic topic = new StringTopic(entry.getTopic());
-      NetworkTableInstance ntInstance = NetworkTableInstance.getDefault();
+      addWidgetHandler(
+          entry.getTopic(),
+          value,
+          (v) -> {
+            String newValue = v.getString();
+
+            if (newValue.equals(value.getValue())) {
+              return false;
+            }
 
-      ntInstance.addListener(
-          topic,
-          EnumSet.of(NetworkTableEvent.Kind.kValueAll),
-          (event) -> value.setValue(event.valueData.value.getString()));
+            value.setValue(newValue);
+            return true;
+          });
     }
 
     @Override
@@ -499,13 +1045,19 @@ public class RobotPreferences {
 
       entry.setBoolean(value.getValue());
 
-      BooleanTopic topic = new BooleanTopic(entry.getTopic());
-      NetworkTableInstance ntInstance = NetworkTableInstance.getDefault();
+      addWidgetHandler(
+          entry.getTopic(),
+          value,
+          (v) -> {
+            boolean newValue = v.getBoolean();
 
-      ntInstance.addListener(
-          topic,
-          EnumSet.of(NetworkTableEvent.Kind.kValueAll),
-          (event) -> value.setValue(event.valueData.value.getBoolean()));
+            if (newValue == value.getValue()) {
+              return false;
+            }
+
+            value.setValue(newValue);
+            return true;
+          });
     }
 
     @Override
@@ -519,13 +1071,19 @@ public class RobotPreferences {
 
       entry.setDouble(value.getValue());
 
-      DoubleTopic topic = new DoubleTopic(entry.getTopic());
-      NetworkTableInstance ntInstance = NetworkTableInstance.getDefault();
+      addWidgetHandler(
+          entry.getTopic(),
+          value,
+          (v) -> {
+            double newValue = v.getDouble();
+
+            if (newValue == value.getValue()) {
+              return false;
+            }
 
-      ntInstance.addListener(
-          topic,
-          EnumSet.of(NetworkTableEvent.Kind.kValueAll),
-          (event) -> value.setValue(event.valueData.value.getDouble()));
+            value.setValue(newValue);
+            return true;
+          });
     }
 
     @Override
@@ -541,19 +1099,55 @@ public class RobotPreferences {
 
       configureWidget(widget);
 
-      NetworkTableInstance ntInstance = NetworkTableInstance.getDefault();
+      // The dashboard publishes the selected option. The "active" topic is published by the robot
+      // and so would only report our own changes.
       NetworkTableEntry chooserEntry =
-          ntInstance
+          NetworkTableInstance.getDefault()
               .getTable(Shuffleboard.kBaseTableName)
               .getSubTable(kShufflboardTabName)
               .getSubTable(value.getGroup())
               .getSubTable(value.getName())
-              .getEntry("active");
+              .getEntry("selected");
+
+      addWidgetHandler(
+          chooserEntry.getTopic(),
+          value,
+          (v) -> {
+            String newValue = v.getString();
 
-      ntInstance.addListener(
-          chooserEntry,
-          EnumSet.of(NetworkTableEvent.Kind.kValueAll),
-          (event) -> value.setValue(event.valueData.value.getString()));
+            if (newValue.equals(value.getValue().name())) {
+              return false;
+            }
+
+            value.setValue(newValue);
+            return true;
+          });
+    }
+
+    @Override
+    public void visit(InterpolatingTableValue value) {
+      SimpleWidget widget =
+          layout.add(value.getName(), value.getText()).withWidget(BuiltInWidgets.kTextView);
+
+      configureWidget(widget);
+
+      GenericEntry entry = widget.getEntry();
+
+      entry.setString(value.getText());
+
+      addWidgetHandler(
+          entry.getTopic(),
+          value,
+          (v) -> {
+            String newValue = v.getString();
+
+            if (newValue.equals(value.getText())) {
+              return false;
+            }
+
+            value.setText(newValue);
+            return true;
+          });
     }
 
     /**
@@ -583,101 +1177,891 @@ public class RobotPreferences {
   /** The name of the Shuffleboard tab containing the preferences widgets. */
   public static final String kShufflboardTabName = "Preferences";
 
+  /** The name of the NetworkTables table backing the {@link Preferences} store. */
+  static final String kPreferencesTableName = "Preferences";
+
+  /** Whether reads of preferences values are served from cached values. */
+  private static volatile boolean cachedReads;
+
+  /** The values whose reads are served from cached values. */
+  private static final Set<Value> cachedValues = ConcurrentHashMap.newKeySet();
+
+  /** The values with change notifications waiting to be dispatched. */
+  private static final Queue<Value> changedValues = new ConcurrentLinkedQueue<>();
+
+  /** The quiet period before deferred entries are marked persistent, or 0 to persist at once. */
+  private static volatile long persistQuietPeriodNanos;
+
+  /** The time of the most recent write with deferred persistence. */
+  private static volatile long lastDeferredWriteNanos;
+
+  /** The values whose entries are waiting to be marked persistent. */
+  private static final Set<Value> pendingPersists = ConcurrentHashMap.newKeySet();
+
+  /** Whether the robot was enabled during the previous call to {@link #poll()}. */
+  private static boolean wasEnabled;
+
+  /** The prefix of the topics of the widgets in the Shuffleboard preferences tab. */
+  private static final String kShuffleboardTopicPrefix =
+      "/" + Shuffleboard.kBaseTableName + "/" + kShufflboardTabName + "/";
+
+  /**
+   * Updates a value from its Shuffleboard widget.
+   *
+   * @param value The value edited by the widget.
+   * @param update Writes the new widget value to the value, returning whether it differed from the
+   *     current value.
+   */
+  private record WidgetHandler(Value value, Predicate<NetworkTableValue> update) {}
+
+  /** The handlers of the values edited by the Shuffleboard widgets by topic handle. */
+  private static final Map<Integer, WidgetHandler> widgetHandlers = new ConcurrentHashMap<>();
+
+  /** The handle of the listener for the Shuffleboard widgets, or 0 if it has not been added. */
+  private static int widgetListenerHandle;
+
+  /**
+   * An update from a Shuffleboard widget waiting to be applied by {@link #poll()}.
+   *
+   * @param handler The handler of the widget topic.
+   * @param value The new value of the widget topic.
+   */
+  private record WidgetEvent(WidgetHandler handler, NetworkTableValue value) {}
+
+  /** The default maximum number of widget events waiting to be applied. */
+  private static final int kDefaultWidgetEventCapacity = 256;
+
+  /** The default maximum number of widget events applied per call to {@link #poll()}. */
+  private static final int kDefaultEventBudget = 32;
+
+  /** The widget events waiting to be applied by {@link #poll()}. */
+  private static final MpscRingBuffer<WidgetEvent> widgetEventQueue =
+      new MpscRingBuffer<>(kDefaultWidgetEventCapacity);
+
+  /**
+   * Whether widget events are queued for {@link #poll()} instead of applied by the listener. Only
+   * set before the widget listener is added, so every event is handled the same way.
+   */
+  private static volatile boolean queueWidgetEvents;
+
+  /** The maximum number of widget events applied per call to {@link #poll()}. */
+  private static volatile int eventBudget = kDefaultEventBudget;
+
+  /** The number of widget events dropped because the queue was full. */
+  private static final AtomicLong droppedWidgetEvents = new AtomicLong();
+
+  /** The number of widget value events handled. */
+  private static final LongAdder widgetEvents = new LongAdder();
+
+  /** The total latency of the handled widget value events in microseconds. */
+  private static final LongAdder widgetEventLatency = new LongAdder();
+
+  /** The maximum latency of a handled widget value event in microseconds. */
+  private static final AtomicLong maxWidgetEventLatency = new AtomicLong();
+
+  /** The handle of the connection listener deferring the Shuffleboard tab, or 0 if none. */
+  private static int tabConnectionListenerHandle;
+
+  /** Whether a NetworkTables client has connected. Set by the connection listener. */
+  private static volatile boolean dashboardConnected;
+
+  /** Whether the Shuffleboard preferences tab has been built or scheduled to be built. */
+  private static boolean tabBuilt;
+
+  /** The remaining steps building the Shuffleboard tab, or null if none remain. */
+  private static volatile Queue<Runnable> tabBuildSteps;
+
+  /** The maximum number of layouts and widgets added to a deferred tab per loop. */
+  private static int tabComponentsPerLoop;
+
+  /** The publishers of the groups published as struct topics. */
+  private static final List<GroupStructPublisher> structPublishers = new CopyOnWriteArrayList<>();
+
+  /** The sources of group snapshots by group name. */
+  private static final Map<String, SnapshotSource> snapshotSources = new ConcurrentHashMap<>();
+
+  /** Creates the snapshots of a group of values, replacing the snapshot when a value changes. */
+  private static final class SnapshotSource {
+    private final String group;
+    private final Value[] values;
+    private final Map<String, Integer> slots;
+    private volatile GroupSnapshot current;
+
+    /**
+     * Constructs the snapshot source for a group.
+     *
+     * @param group The group name.
+     */
+    SnapshotSource(String group) {
+      this.group = group;
+      this.values = getRegistry().getGroup(group);
+
+      Map<String, Integer> slots = new HashMap<>();
+
+      for (int i = 0; i < values.length; i++) {
+        slots.put(values[i].getName(), i);
+      }
+
+      this.slots = Map.copyOf(slots);
+    }
+
+    /**
+     * Returns the current snapshot of the group.
+     *
+     * <p>The snapshot is replaced when the sum of the versions of the values changes. The versions
+     * are read before and after the values are copied, and the copy is repeated if a value changed
+     * in between, so a snapshot never mixes values from before and after a change.
+     *
+     * @return The current snapshot of the group.
+     */
+    GroupSnapshot get() {
+      GroupSnapshot snapshot = current;
+      long version = version();
+
+      if (snapshot != null && snapshot.version() == version) {
+        return snapshot;
+      }
+
+      synchronized (this) {
+        while (true) {
+          snapshot = new GroupSnapshot(group, values, slots, version);
+
+          long newVersion = version();
+
+          if (newVersion == version) {
+            current = snapshot;
+            return snapshot;
+          }
+
+          version = newVersion;
+        }
+      }
+    }
+
+    /** Returns the sum of the versions of the values in the group. */
+    private long version() {
+      long version = 0;
+
+      for (Value value : values) {
+        version += value.version();
+      }
+
+      return version;
+    }
+  }
+
   /** Whether to write the default values to the preferences file on startup. */
   @RobotPreferencesValue
   public static BooleanValue writeDefault = new BooleanValue("Preferences", "WriteDefault", true);
 
+  /** The actions taken on orphaned preferences keys. */
+  public enum OrphanedKeyPolicy {
+    /** Orphaned keys are ignored. */
+    IGNORE,
+
+    /** Orphaned keys are printed to the console. */
+    REPORT,
+
+    /** Orphaned keys are printed to the console and removed from the preferences store. */
+    REMOVE
+  }
+
+  /**
+   * The action taken on startup on keys in the preferences store that do not belong to any value
+   * annotated with {@link RobotPreferencesValue}.
+   *
+   * <p>Keys of values that were renamed or removed remain in the persistent preferences file,
+   * making it larger and slowing the initial synchronization with the dashboard. Before choosing
+   * {@link OrphanedKeyPolicy#REMOVE}, use {@link OrphanedKeyPolicy#REPORT} to check that no
+   * reported key is still used by preferences values that are not annotated or by code using the
+   * {@link Preferences} class directly.
+   */
+  @RobotPreferencesValue
+  public static EnumValue<OrphanedKeyPolicy> orphanedKeys =
+      new EnumValue<>("Preferences", "OrphanedKeys", OrphanedKeyPolicy.IGNORE);
+
+  /**
+   * The approximate number of bytes taken by each entry in the persistent preferences file in
+   * addition to its key and value.
+   */
+  private static final int kPersistentEntryOverhead = 80;
+
+  /** The registry of annotated preferences values, or null if it has not been built. */
+  private static volatile PreferencesRegistry registry;
+
+  /** Whether {@link #init()} has been deferred until the preferences are first used. */
+  private static volatile boolean initPending;
+
   /** Initializes the robot preferences. */
   public static void init() {
+    initPending = false;
+    StartupReport.time(
+        "RobotPreferences.init",
+        () -> {
+          registry =
+              StartupReport.time("RobotPreferences.buildRegistry", PreferencesRegistry::build);
+          snapshotSources.clear();
+          initValues();
+          StartupReport.time("RobotPreferences.addStructTopics", RobotPreferences::addStructTopics);
+        });
+  }
+
+  /**
+   * Creates the struct topic publishers of the groups whose {@link RobotPreferencesLayout}
+   * annotation enables {@link RobotPreferencesLayout#structTopic()}.
+   *
+   * <p>Groups without any value that can be encoded in a struct are reported and skipped.
+   *
+   * @throws IllegalStateException If a group enables struct topics and cached reads are disabled.
+   */
+  private static void addStructTopics() {
+    PreferencesRegistry registry = getRegistry();
+    Set<String> typeIdentifiers = new HashSet<>();
+
+    structPublishers.clear();
+
+    List<String> groups =
+        Annotations.getAnnotatedTypes(RobotPreferencesLayout.class).stream()
+            .map(c -> c.getAnnotation(RobotPreferencesLayout.class))
+            .filter(RobotPreferencesLayout::structTopic)
+            .map(RobotPreferencesLayout::groupName)
+            .distinct()
+            .sorted()
+            .collect(Collectors.toList());
+
+    // Struct topics are only published again when a version changes, which requires cached reads
+    // for dashboard edits, as for snapshots.
+    if (!groups.isEmpty() && !cachedReads) {
+      throw new IllegalStateException("Preferences struct topics require cached reads");
+    }
+
+    groups.forEach(
+        group ->
+            GroupStructPublisher.create(group, registry.getGroup(group), typeIdentifiers)
+                .ifPresentOrElse(
+                    structPublishers::add,
+                    () ->
+                        System.err.println(
+                            "WARNING: Preferences group "
+                                + group
+                                + " has no Boolean, floating-point or enum values to publish as a"
+                                + " struct topic.")));
+  }
+
+  /**
+   * Defers the initialization of the robot preferences until they are first used.
+   *
+   * <p>This method is called by {@link com.nrg948.Common#initAsync(String...)} so that {@link
+   * #init()}, which may remove and rewrite values in the preferences store, does not run on the
+   * background thread while the robot program is using the preferences. Instead, {@link #init()}
+   * runs on the thread making the first call to {@link #poll()}, {@link #addShuffleBoardTab()},
+   * {@link #addShuffleBoardTabOnConnect(int)}, {@link #getValue(String)} or {@link
+   * #snapshot(String)}, normally the main robot thread. It waits for the annotation metadata if it
+   * is not ready yet.
+   */
+  public static void deferInit() {
+    initPending = true;
+  }
+
+  /** Runs {@link #init()} if it was deferred by {@link #deferInit()} and has not run yet. */
+  private static void completeDeferredInit() {
+    if (initPending) {
+      synchronized (RobotPreferences.class) {
+        if (initPending) {
+          init();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the registry of annotated preferences values, building it on first use.
+   *
+   * @return The registry.
+   */
+  private static PreferencesRegistry getRegistry() {
+    completeDeferredInit();
+
+    PreferencesRegistry result = registry;
+
+    if (result == null) {
+      synchronized (RobotPreferences.class) {
+        result = registry;
+
+        if (result == null) {
+          registry = result = PreferencesRegistry.build();
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the preferences value with the specified key.
+   *
+   * <p>Only values in static fields annotated with {@link RobotPreferencesValue} can be found.
+   *
+   * @param key The key of the value, the group name and value name separated by a forward slash
+   *     ("/") character.
+   * @return The value, or {@link Optional#empty()} if there is no value with the key.
+   */
+  public static Optional<Value> getValue(String key) {
+    return getRegistry().getValue(key);
+  }
+
+  /** Writes the default preferences values and prints the non-default values. */
+  private static void initValues() {
     DefaultValueWriter writeDefaultValue = new DefaultValueWriter();
 
     if (writeDefault.getValue()) {
-      Preferences.removeAll();
-      getAllValues().forEach(v -> v.accept(writeDefaultValue));
-      writeDefault.setValue(false);
+      StartupReport.time(
+          "RobotPreferences.writeDefaults",
+          () -> {
+            Preferences.removeAll();
+            cachedValues.forEach(v -> v.persistent = false);
+            getAllValues().forEach(v -> v.accept(writeDefaultValue));
+            writeDefault.setValue(false);
+            flush();
+          });
     } else {
-      getAllValues().filter(v -> !v.exists()).forEach(v -> v.accept(writeDefaultValue));
+      Set<String> keys = new HashSet<>(Preferences.getKeys());
+
+      StartupReport.time(
+          "RobotPreferences.writeDefaults",
+          () -> {
+            List<Value> missingValues =
+                getAllValues().filter(v -> !keys.contains(v.getKey())).collect(Collectors.toList());
+
+            missingValues.forEach(v -> v.accept(writeDefaultValue));
+            flush();
+          });
+
+      StartupReport.time("RobotPreferences.compactKeys", () -> compactKeys(keys));
 
       NonDefaultValuePrinter printer = new NonDefaultValuePrinter();
 
-      getAllValues().forEach((v) -> v.accept(printer));
+      StartupReport.time(
+          "RobotPreferences.printNonDefaults",
+          () -> getAllValues().forEach((v) -> v.accept(printer)));
     }
   }
 
-  /** Adds a tab to the Shuffleboard allowing the robot operator to adjust values. */
-  public static void addShuffleBoardTab() {
-    ShuffleboardTab prefsTab = Shuffleboard.getTab(kShufflboardTabName);
+  /**
+   * Reports and optionally removes the keys in the preferences store that do not belong to any
+   * registered value, according to the {@link #orphanedKeys} policy.
+   *
+   * @param keys The keys in the preferences store.
+   */
+  private static void compactKeys(Set<String> keys) {
+    OrphanedKeyPolicy policy = orphanedKeys.getValue();
+
+    if (policy == OrphanedKeyPolicy.IGNORE) {
+      return;
+    }
 
-    Set<Class<?>> classes =
-        Annotations.get(TypesAnnotated.with(RobotPreferencesLayout.class).asClass());
+    long startTime = System.nanoTime();
+    PreferencesRegistry registry = getRegistry();
+
+    // Keys starting with '.', such as the ".type" key identifying the table to dashboards, are
+    // metadata written by WPILib rather than preferences values.
+    List<String> orphans =
+        keys.stream()
+            .filter(key -> !key.startsWith(".") && registry.getValue(key).isEmpty())
+            .sorted()
+            .collect(Collectors.toList());
+    NetworkTable table = NetworkTableInstance.getDefault().getTable(kPreferencesTableName);
+    long size = 0;
+
+    for (String key : orphans) {
+      size += estimatePersistentSize(key, table.getEntry(key).getValue());
+
+      if (policy == OrphanedKeyPolicy.REMOVE) {
+        System.out.println("REMOVING ORPHANED VALUE: " + key);
+        Preferences.remove(key);
+      } else {
+        System.out.println("ORPHANED VALUE: " + key);
+      }
+    }
 
-    classes.stream()
-        .map(c -> c.getAnnotation(RobotPreferencesLayout.class))
-        .forEach(
-            layout -> {
-              var shuffleboardLayout =
-                  prefsTab
-                      .getLayout(layout.groupName(), layout.type())
-                      .withPosition(layout.column(), layout.row())
-                      .withSize(layout.width(), layout.height());
-
-              if (layout.type().equals(BuiltInLayouts.kGrid.getLayoutName())) {
-                int gridColumns = layout.gridColumns();
-                int gridRows = layout.gridRows();
-
-                if (gridColumns > 0 && gridRows > 0) {
-                  shuffleboardLayout.withProperties(
-                      Map.of("Number of columns", gridColumns, "Number of rows", gridRows));
-                }
-              }
-            });
+    System.out.printf(
+        "%s %d orphaned of %d preferences keys (approximately %d bytes) in %.1f ms%n",
+        policy == OrphanedKeyPolicy.REMOVE ? "Removed" : "Found",
+        orphans.size(),
+        keys.size(),
+        size,
+        (System.nanoTime() - startTime) / 1e6);
+  }
 
-    getFields()
-        .map(RobotPreferences::mapToPair)
-        .collect(Collectors.groupingBy(p -> p.getValue1().group))
-        .forEach(
-            (group, pairs) -> {
-              ShuffleboardLayout layout = prefsTab.getLayout(group);
+  /**
+   * Returns the approximate number of bytes taken by an entry in the persistent preferences file.
+   *
+   * @param key The preferences key.
+   * @param value The value of the key.
+   * @return The approximate size of the entry in bytes.
+   */
+  private static long estimatePersistentSize(String key, NetworkTableValue value) {
+    long valueSize;
+
+    switch (value.getType()) {
+      case kBoolean:
+        valueSize = 5;
+        break;
+
+      case kString:
+        valueSize = value.getString().length() + 2;
+        break;
+
+      case kDoubleArray:
+        valueSize = value.getDoubleArray().length * 20L + 2;
+        break;
+
+      default:
+        valueSize = 20;
+        break;
+    }
+
+    return kPreferencesTableName.length() + key.length() + valueSize + kPersistentEntryOverhead;
+  }
+
+  /**
+   * Sets whether reads of preferences values are served from cached values.
+   *
+   * <p>Cached reads are disabled by default. When enabled, each value keeps its current value in a
+   * field updated by its own NetworkTables listener, <code>getValue</code> simply returns the field
+   * and <code>setValue</code> writes directly to the value's NetworkTables entry. Neither allocates
+   * memory once the listener is attached, so values may be read and written in periodic methods
+   * without adding garbage collection pressure. Values written by the dashboard only become
+   * visible once the NetworkTables listener thread processes the change.
+   *
+   * <p>When cached reads are disabled, each call to <code>getValue</code> and <code>setValue</code>
+   * looks up the value in the {@link Preferences} store by its string key, and {@link
+   * #snapshot(String)} cannot be used.
+   *
+   * @param enabled Whether to enable cached reads.
+   */
+  public static void setCachedReads(boolean enabled) {
+    cachedReads = enabled;
+
+    if (!enabled) {
+      cachedValues.forEach(Value::detachListener);
+    }
+  }
 
-              pairs.stream()
-                  .forEach(
-                      pair -> {
-                        ShuffleboardWidgetBuilder builder =
-                            new ShuffleboardWidgetBuilder(layout, pair.getValue0());
+  /**
+   * Returns whether reads of preferences values are served from cached values.
+   *
+   * @return Whether cached reads are enabled.
+   */
+  public static boolean isCachedReads() {
+    return cachedReads;
+  }
 
-                        pair.getValue1().accept(builder);
-                      });
-            });
+  /**
+   * Sets the quiet period of write-behind persistence.
+   *
+   * <p>NetworkTables saves the preferences file to the roboRIO's flash storage whenever a
+   * persistent entry changed since the previous save, so dragging a Shuffleboard slider rewrites
+   * the file about once a second for as long as the drag lasts. When the quiet period is positive
+   * and cached reads are enabled, <code>setValue</code> still writes each value to its entry
+   * immediately, so robot code and dashboards see it at once, but clears the entry's persistent
+   * flag until {@link #poll()} marks it persistent again, once no value has been set for the quiet
+   * period or when the robot is disabled. A burst of edits then costs at most two saves however
+   * long it lasts.
+   *
+   * <p>A value whose persistence is still deferred is not in the saved preferences file, so it
+   * reverts to its default value if the robot restarts before the quiet period elapses.
+   *
+   * @param seconds The quiet period in seconds, or 0 to mark entries persistent immediately.
+   */
+  public static void setPersistQuietPeriod(double seconds) {
+    persistQuietPeriodNanos = (long) (Math.max(seconds, 0) * 1e9);
+
+    if (persistQuietPeriodNanos == 0) {
+      flush();
+    }
+  }
+
+  /** Marks the entries whose persistence was deferred by write-behind persistence persistent. */
+  public static void flush() {
+    for (Value value : pendingPersists) {
+      pendingPersists.remove(value);
+      value.persistIfPending();
+    }
+  }
+
+  /**
+   * Applies Shuffleboard updates and dispatches the pending change notifications.
+   *
+   * <p>This method should be called once per loop in <code>Robot.robotPeriodic()</code>. Updates
+   * from the Shuffleboard tab queued by {@link #enableEventQueue(int)} are applied first, up to the
+   * budget. The change listeners of each value that changed since the previous call
+   * are then called once on the calling thread. Groups published as struct topics are published
+   * again if one of their values changed. A Shuffleboard tab deferred by {@link
+   * #addShuffleBoardTabOnConnect(int)} is built a few components at a time once a dashboard
+   * connects. Entries whose persistence was deferred are marked persistent when the quiet period
+   * set by {@link #setPersistQuietPeriod(double)} has elapsed since the last write or when the
+   * robot has just been disabled.
+   */
+  public static void poll() {
+    completeDeferredInit();
+
+    WidgetEvent event;
+
+    for (int i = eventBudget; i > 0 && (event = widgetEventQueue.poll()) != null; i--) {
+      applyWidgetEvent(event.handler(), event.value());
+    }
+
+    Value value;
+
+    while ((value = changedValues.poll()) != null) {
+      value.notifyChangeListeners();
+    }
+
+    for (GroupStructPublisher publisher : structPublishers) {
+      publisher.update();
+    }
+
+    if (tabBuildSteps != null && dashboardConnected) {
+      runTabBuildSteps(tabComponentsPerLoop);
+    }
+
+    boolean enabled = !DriverStation.isDisabled();
+
+    if (!pendingPersists.isEmpty()
+        && ((wasEnabled && !enabled)
+            || System.nanoTime() - lastDeferredWriteNanos >= persistQuietPeriodNanos)) {
+      flush();
+    }
+
+    wasEnabled = enabled;
+  }
+
+  /**
+   * Queues the updates from the Shuffleboard tab to be applied by {@link #poll()} on the robot
+   * thread.
+   *
+   * <p>By default, the NetworkTables listener writes widget updates to the preferences values on
+   * its own thread. Once this method is called, it instead adds them to a bounded queue that
+   * {@link #poll()} drains on the robot thread, so values never change in the middle of a loop.
+   * Updates beyond the budget remain queued for the next loop. If the queue fills up, further
+   * updates are dropped and counted in {@link WidgetListenerStats#dropped()}.
+   *
+   * <p>This method must be called before the Shuffleboard tab is added, so that every update is
+   * handled the same way, and {@link #poll()} must then be called every loop.
+   *
+   * @param budget The maximum number of updates applied per call to {@link #poll()}, for example
+   *     32.
+   * @throws IllegalStateException If the Shuffleboard tab listener has already been added.
+   */
+  public static synchronized void enableEventQueue(int budget) {
+    if (budget <= 0) {
+      throw new IllegalArgumentException("budget must be positive");
+    }
+
+    if (widgetListenerHandle != 0) {
+      throw new IllegalStateException(
+          "The event queue must be enabled before the Shuffleboard tab is added");
+    }
+
+    eventBudget = budget;
+    queueWidgetEvents = true;
+  }
+
+  /**
+   * Returns a consistent snapshot of the values in a group.
+   *
+   * <p>The snapshot contains every value annotated with {@link RobotPreferencesValue} whose group
+   * name matches. The same snapshot instance is returned until one of the values changes, as
+   * reported by {@link Value#version()}, so this method may be called every loop without
+   * allocating memory.
+   *
+   * <p>Snapshots require cached reads. Without them, a value changed from the dashboard does not
+   * change its version, so the snapshot would never be replaced.
+   *
+   * @param group The group name.
+   * @return The current snapshot of the group.
+   * @throws IllegalStateException If cached reads are disabled by {@link
+   *     #setCachedReads(boolean)}.
+   */
+  public static GroupSnapshot snapshot(String group) {
+    if (!cachedReads) {
+      throw new IllegalStateException("Preferences snapshots require cached reads");
+    }
+
+    completeDeferredInit();
+
+    SnapshotSource source = snapshotSources.get(group);
+
+    if (source == null) {
+      source = snapshotSources.computeIfAbsent(group, SnapshotSource::new);
+    }
+
+    return source.get();
+  }
+
+  /**
+   * Statistics of the events handled by the Shuffleboard preferences tab listener.
+   *
+   * @param events The number of value events handled.
+   * @param averageLatencyMicros The average time in microseconds from the time a value was set to
+   *     the time its event was handled.
+   * @param maxLatencyMicros The maximum time in microseconds from the time a value was set to the
+   *     time its event was handled.
+   * @param handlers The number of widget topics routed to preferences values.
+   * @param queued The number of value events waiting to be applied by {@link #poll()}.
+   * @param dropped The number of value events dropped because the queue was full.
+   */
+  public record WidgetListenerStats(
+      long events,
+      double averageLatencyMicros,
+      long maxLatencyMicros,
+      int handlers,
+      int queued,
+      long dropped) {}
+
+  /**
+   * Returns statistics of the events handled by the Shuffleboard preferences tab listener.
+   *
+   * @return The listener statistics.
+   */
+  public static WidgetListenerStats getWidgetListenerStats() {
+    long events = widgetEvents.sum();
+
+    return new WidgetListenerStats(
+        events,
+        events > 0 ? (double) widgetEventLatency.sum() / events : 0.0,
+        maxWidgetEventLatency.get(),
+        widgetHandlers.size(),
+        widgetEventQueue.size(),
+        droppedWidgetEvents.get());
+  }
+
+  /**
+   * Routes the value events of a Shuffleboard widget topic to a handler.
+   *
+   * <p>A single NetworkTables listener on the Shuffleboard preferences tab is added the first time
+   * this method is called. Its events are routed to the handlers by topic handle. Only remote
+   * value changes are reported, so the values published by the robot program itself are not
+   * written back to the preferences store.
+   *
+   * @param topic The topic of the widget.
+   * @param value The value edited by the widget.
+   * @param update Writes the new value of the topic to the value, returning whether it differed
+   *     from the current value. Updates that match the current value are skipped and counted by
+   *     {@link Value#getSuppressedUpdates()}.
+   */
+  private static synchronized void addWidgetHandler(
+      Topic topic, Value value, Predicate<NetworkTableValue> update) {
+    widgetHandlers.put(topic.getHandle(), new WidgetHandler(value, update));
+
+    if (widgetListenerHandle == 0) {
+      widgetListenerHandle =
+          NetworkTableInstance.getDefault()
+              .addListener(
+                  new String[] {kShuffleboardTopicPrefix},
+                  EnumSet.of(NetworkTableEvent.Kind.kValueRemote),
+                  RobotPreferences::dispatchWidgetEvent);
+    }
+  }
+
+  /**
+   * Routes a value event from the Shuffleboard preferences tab to the handler of its topic.
+   *
+   * <p>If the event queue is enabled by {@link #enableEventQueue(int)}, the event is queued to be
+   * applied by {@link #poll()} on the robot thread. Otherwise, it is applied immediately on the
+   * listener thread.
+   *
+   * @param event The value event.
+   */
+  private static void dispatchWidgetEvent(NetworkTableEvent event) {
+    ValueEventData data = event.valueData;
+
+    if (data == null) {
+      return;
+    }
+
+    WidgetHandler handler = widgetHandlers.get(data.topic);
+
+    if (handler == null) {
+      return;
+    }
+
+    if (!queueWidgetEvents) {
+      applyWidgetEvent(handler, data.value);
+    } else if (!widgetEventQueue.offer(new WidgetEvent(handler, data.value))
+        && droppedWidgetEvents.getAndIncrement() == 0) {
+      System.err.println(
+          "WARNING: Preferences widget event queue is full. Is RobotPreferences.poll() called"
+              + " every loop?");
+    }
+  }
+
+  /**
+   * Applies an update from a Shuffleboard widget.
+   *
+   * @param handler The handler of the widget topic.
+   * @param value The new value of the widget topic.
+   */
+  private static void applyWidgetEvent(WidgetHandler handler, NetworkTableValue value) {
+    handler.value().recordUpdate(handler.update().test(value));
+
+    long latency = NetworkTablesJNI.now() - value.getTime();
+
+    widgetEvents.increment();
+    widgetEventLatency.add(latency);
+    maxWidgetEventLatency.accumulateAndGet(latency, Math::max);
+  }
+
+  /**
+   * Adds a tab to the Shuffleboard allowing the robot operator to adjust values.
+   *
+   * <p>The tab is only built once. If {@link #addShuffleBoardTabOnConnect(int)} was called first,
+   * the rest of the deferred tab is built immediately.
+   */
+  public static synchronized void addShuffleBoardTab() {
+    StartupReport.time(
+        "RobotPreferences.addShuffleBoardTab",
+        () -> {
+          if (!tabBuilt) {
+            tabBuilt = true;
+            tabBuildSteps = new ArrayDeque<>(getTabBuildSteps());
+          }
+
+          runTabBuildSteps(Integer.MAX_VALUE);
+        });
   }
 
-  /** Returns a stream of fields containing preferences values. */
-  private static Stream<Field> getFields() {
-    Set<Field> fields =
-        Annotations.get(FieldsAnnotated.with(RobotPreferencesValue.class).as(Field.class));
+  /**
+   * Adds a tab to the Shuffleboard allowing the robot operator to adjust values once a dashboard
+   * connects.
+   *
+   * <p>The steps building the tab are collected when this method is called, but no layout or
+   * widget is added until NetworkTables reports the first client connection, so the robot program
+   * does not pay for the tab when no dashboard is connected. The layouts and widgets are then added
+   * by {@link #poll()} a few at a time, spreading the cost of building the tab across several
+   * robot loop iterations. The tab is only built once, even if {@link #addShuffleBoardTab()} is
+   * also called.
+   *
+   * @param componentsPerLoop The maximum number of layouts and widgets added per call to {@link
+   *     #poll()}.
+   */
+  public static synchronized void addShuffleBoardTabOnConnect(int componentsPerLoop) {
+    if (componentsPerLoop <= 0) {
+      throw new IllegalArgumentException("componentsPerLoop must be positive");
+    }
+
+    if (tabBuilt) {
+      return;
+    }
 
-    return fields.stream().filter(f -> Modifier.isStatic(f.getModifiers()));
+    tabBuilt = true;
+    tabComponentsPerLoop = componentsPerLoop;
+    tabBuildSteps = new ArrayDeque<>(getTabBuildSteps());
+    tabConnectionListenerHandle =
+        NetworkTableInstance.getDefault()
+            .addConnectionListener(
+                true,
+                (event) -> {
+                  if (event.is(NetworkTableEvent.Kind.kConnected)) {
+                    dashboardConnected = true;
+                  }
+                });
   }
 
-  /** Maps a preferences field to its value instance. */
-  private static Value mapToValue(Field field) {
-    try {
-      return (Value) field.get(null);
-    } catch (IllegalArgumentException e) {
-      e.printStackTrace();
-    } catch (IllegalAccessException e) {
-      e.printStackTrace();
+  /**
+   * Adds the next layouts and widgets to the Shuffleboard preferences tab.
+   *
+   * <p>Once all the steps have run, the connection listener deferring the tab, if any, is removed.
+   *
+   * @param maxSteps The maximum number of steps to run.
+   */
+  private static synchronized void runTabBuildSteps(int maxSteps) {
+    Queue<Runnable> steps = tabBuildSteps;
+
+    if (steps == null) {
+      return;
+    }
+
+    Runnable step;
+
+    for (int i = 0; i < maxSteps && (step = steps.poll()) != null; i++) {
+      step.run();
     }
 
-    return null;
+    if (steps.isEmpty()) {
+      tabBuildSteps = null;
+
+      if (tabConnectionListenerHandle != 0) {
+        NetworkTableInstance.getDefault().removeListener(tabConnectionListenerHandle);
+        tabConnectionListenerHandle = 0;
+      }
+    }
   }
 
-  /** Maps a preferences field to a pair of its annotation and value instance */
-  private static Pair<RobotPreferencesValue, Value> mapToPair(Field field) {
-    return Pair.with(field.getAnnotation(RobotPreferencesValue.class), mapToValue(field));
+  /**
+   * Returns the steps adding the layouts and widgets to the Shuffleboard preferences tab.
+   *
+   * <p>The layouts annotated with {@link RobotPreferencesLayout} are added first so that their
+   * types, positions and sizes are applied before any widget is added to them.
+   *
+   * @return The steps in the order they must be run.
+   */
+  private static List<Runnable> getTabBuildSteps() {
+    ShuffleboardTab prefsTab = Shuffleboard.getTab(kShufflboardTabName);
+    List<Runnable> steps = new ArrayList<>();
+
+    Set<Class<?>> classes = Annotations.getAnnotatedTypes(RobotPreferencesLayout.class);
+
+    classes.stream()
+        .map(c -> c.getAnnotation(RobotPreferencesLayout.class))
+        .forEach(layout -> steps.add(() -> addLayout(prefsTab, layout)));
+
+    PreferencesRegistry registry = getRegistry();
+
+    registry
+        .getGroups()
+        .forEach(
+            (group, values) -> {
+              for (Value value : values) {
+                steps.add(
+                    () ->
+                        value.accept(
+                            new ShuffleboardWidgetBuilder(
+                                prefsTab.getLayout(group), registry.getMetadata(value))));
+              }
+            });
+
+    return steps;
+  }
+
+  /**
+   * Adds a layout annotated with {@link RobotPreferencesLayout} to the Shuffleboard preferences
+   * tab.
+   *
+   * @param prefsTab The Shuffleboard preferences tab.
+   * @param layout The layout annotation.
+   */
+  private static void addLayout(ShuffleboardTab prefsTab, RobotPreferencesLayout layout) {
+    var shuffleboardLayout =
+        prefsTab
+            .getLayout(layout.groupName(), layout.type())
+            .withPosition(layout.column(), layout.row())
+            .withSize(layout.width(), layout.height());
+
+    if (layout.type().equals(BuiltInLayouts.kGrid.getLayoutName())) {
+      int gridColumns = layout.gridColumns();
+      int gridRows = layout.gridRows();
+
+      if (gridColumns > 0 && gridRows > 0) {
+        shuffleboardLayout.withProperties(
+            Map.of("Number of columns", gridColumns, "Number of rows", gridRows));
+      }
+    }
   }
 
   /** Returns all preferences values. */
   private static Stream<Value> getAllValues() {
-    return getFields().map(RobotPreferences::mapToValue).filter(v -> v != null);
+    return Arrays.stream(getRegistry().getValues());
   }
 }
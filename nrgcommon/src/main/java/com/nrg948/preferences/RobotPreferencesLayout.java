@@ -94,4 +94,15 @@ public @interface RobotPreferencesLayout {
    * @return The number of rows.
    */
   int gridRows() default -1;
+
+  /**
+   * Whether to also publish the group's values as a single NetworkTables struct topic. The boolean,
+   * double and enum values in the group are packed into one message, so a change to several values
+   * reaches the dashboard and data log as a single update. The topic is updated by {@link
+   * RobotPreferences#poll()}. Struct topics require cached reads to be enabled by {@link
+   * RobotPreferences#setCachedReads(boolean)} before the preferences are initialized.
+   *
+   * @return Whether to publish a struct topic for the group.
+   */
+  boolean structTopic() default false;
 }
@@ -87,6 +87,15 @@
  * RobotPreferences#addShuffleBoardTab()} method where you add other Shuffleboard elements. The
  * method will add all layouts defined by the {@link RobotPreferencesLayout} annotation to a tab
  * named "Preferences" in Shuffleboard.
+ *
+ * <p>To read related values such as PID gains together, call {@link
+ * RobotPreferences#snapshot(String)} with the group name. The returned {@link GroupSnapshot}
+ * captures all the values in the group at once, so a change made from the dashboard never leaves
+ * the controller with a mix of old and new gains.
+ *
+ * <p>Setting {@link RobotPreferencesLayout#structTopic()} also publishes the group as a single
+ * struct topic in the "PreferencesStructs" NetworkTables table, which {@link
+ * RobotPreferences#poll()} updates in one message whenever any of the group's values change.
  */
 package com.nrg948.preferences;
 
@@ -0,0 +1,188 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+
+/** Tests the {@link MpscRingBuffer} class. */
+public class MpscRingBufferTest {
+  /** The number of producer threads in the concurrent test. */
+  private static final int kProducers = 4;
+
+  /** The number of elements offered by each producer in the concurrent test. */
+  private static final int kElementsPerProducer = 100_000;
+
+  /** Verifies that the capacity is rounded up to a power of two. */
+  @Test
+  public void capacityIsRoundedUpToPowerOfTwo() {
+    assertEquals(1, new MpscRingBuffer<Integer>(1).capacity());
+    assertEquals(8, new MpscRingBuffer<Integer>(5).capacity());
+    assertEquals(8, new MpscRingBuffer<Integer>(8).capacity());
+    assertEquals(16, new MpscRingBuffer<Integer>(9).capacity());
+  }
+
+  /** Verifies that invalid capacities are rejected. */
+  @Test
+  public void invalidCapacityIsRejected() {
+    assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<Integer>(0));
+    assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<Integer>(-1));
+    assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<Integer>((1 << 30) + 1));
+  }
+
+  /** Verifies that polling an empty queue returns null. */
+  @Test
+  public void pollEmptyReturnsNull() {
+    MpscRingBuffer<Integer> queue = new MpscRingBuffer<>(4);
+
+    assertNull(queue.poll());
+    assertEquals(0, queue.size());
+
+    assertTrue(queue.offer(1));
+    assertEquals(1, queue.poll());
+    assertNull(queue.poll());
+    assertEquals(0, queue.size());
+  }
+
+  /** Verifies that offering to a full queue fails until an element is removed. */
+  @Test
+  public void offerFullReturnsFalse() {
+    MpscRingBuffer<Integer> queue = new MpscRingBuffer<>(4);
+
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(i));
+    }
+
+    assertEquals(4, queue.size());
+    assertFalse(queue.offer(4));
+    assertEquals(4, queue.size());
+
+    assertEquals(0, queue.poll());
+    assertTrue(queue.offer(4));
+    assertFalse(queue.offer(5));
+
+    for (int i = 1; i <= 4; i++) {
+      assertEquals(i, queue.poll());
+    }
+
+    assertNull(queue.poll());
+  }
+
+  /** Verifies that elements keep their order as the positions wrap around the array many times. */
+  @Test
+  public void wrapAroundPreservesOrder() {
+    MpscRingBuffer<Integer> queue = new MpscRingBuffer<>(4);
+    int next = 0;
+    int expected = 0;
+
+    for (int round = 0; round < 1000; round++) {
+      int count = 1 + round % 4;
+
+      for (int i = 0; i < count; i++) {
+        assertTrue(queue.offer(next++));
+      }
+
+      assertEquals(count, queue.size());
+
+      for (int i = 0; i < count; i++) {
+        assertEquals(expected++, queue.poll());
+      }
+
+      assertNull(queue.poll());
+    }
+  }
+
+  /**
+   * Verifies that no element is lost or duplicated when several threads offer concurrently, and
+   * that the elements of each producer are received in the order they were offered.
+   */
+  @Test
+  public void concurrentProducersDeliverEveryElementInOrder() throws InterruptedException {
+    MpscRingBuffer<long[]> queue = new MpscRingBuffer<>(64);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> producers = new ArrayList<>();
+
+    for (int p = 0; p < kProducers; p++) {
+      long producer = p;
+      Thread thread =
+          new Thread(
+              () -> {
+                try {
+                  start.await();
+                } catch (InterruptedException e) {
+                  return;
+                }
+
+                for (int i = 0; i < kElementsPerProducer; i++) {
+                  long[] element = {producer, i};
+
+                  while (!queue.offer(element)) {
+                    Thread.onSpinWait();
+                  }
+                }
+              });
+
+      thread.start();
+      producers.add(thread);
+    }
+
+    long[] nextExpected = new long[kProducers];
+    int received = 0;
+
+    start.countDown();
+
+    while (received < kProducers * kElementsPerProducer) {
+      long[] element = queue.poll();
+
+      if (element == null) {
+        Thread.onSpinWait();
+        continue;
+      }
+
+      int producer = (int) element[0];
+
+      assertEquals(nextExpected[producer], element[1], "Out of order for producer " + producer);
+      nextExpected[producer]++;
+      received++;
+    }
+
+    for (Thread thread : producers) {
+      thread.join();
+    }
+
+    assertNull(queue.poll());
+
+    for (int p = 0; p < kProducers; p++) {
+      assertEquals(kElementsPerProducer, nextExpected[p]);
+    }
+  }
+}
@@ -0,0 +1,194 @@
+/*
+  MIT License
+
+  Copyright (c) 2024 Newport Robotics Group
+
+  Permission is hereby granted, free of charge, to any person obtaining a copy
+  of this software and associated documentation files (the "Software"), to deal
+  in the Software without restriction, including without limitation the rights
+  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+  copies of the Software, and to permit persons to whom the Software is
+  furnished to do so, subject to the following conditions:
+
+  The above copyright notice and this permission notice shall be included in
+  all copies or substantial portions of the Software.
+
+  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+  SOFTWARE.
+*/
+package com.nrg948.preferences;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import com.nrg948.preferences.RobotPreferences.BooleanValue;
+import com.nrg948.preferences.RobotPreferences.DoubleValue;
+import com.nrg948.preferences.RobotPreferences.EnumValue;
+import com.nrg948.preferences.RobotPreferences.StringValue;
+import com.nrg948.preferences.RobotPreferences.Value;
+import com.sun.management.ThreadMXBean;
+import edu.wpi.first.hal.HAL;
+import java.lang.management.ManagementFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Verifies that reading and writing cached preferences values does not allocate in steady state.
+ *
+ * <p>Each operation is first run enough times for the JIT compiler to compile it, and then the
+ * bytes allocated by the current thread while running it again are measured through {@link
+ * ThreadMXBean#getCurrentThreadAllocatedBytes()}.
+ */
+public class PreferencesValueAllocationTest {
+  /** The enum type of the tested {@link EnumValue}. */
+  private enum Gear {
+    LOW,
+    HIGH
+  }
+
+  /** The number of times an operation is run to warm it up and to measure it. */
+  private static final int kIterations = 20_000;
+
+  /** The maximum time to wait for the listener to initialize a cached value. */
+  private static final long kCacheTimeoutNanos = 5_000_000_000L;
+
+  private static ThreadMXBean threadBean;
+
+  private final StringValue stringValue = new StringValue("Test", "String", "default");
+  private final BooleanValue booleanValue = new BooleanValue("Test", "Boolean", false);
+  private final DoubleValue doubleValue = new DoubleValue("Test", "Double", 1.0);
+  private final EnumValue<Gear> enumValue = new EnumValue<>("Test", "Enum", Gear.LOW);
+
+  private boolean toggle;
+  private Object sink;
+
+  /** Initializes the HAL and enables the allocation counters. */
+  @BeforeAll
+  public static void setup() {
+    threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    assumeTrue(
+        threadBean.isThreadAllocatedMemorySupported(),
+        "Thread allocation counters are not supported by this JVM");
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+
+    HAL.initialize(500, 0);
+    RobotPreferences.setCachedReads(true);
+  }
+
+  /** Restores the default cached reads setting. */
+  @AfterAll
+  public static void tearDown() {
+    RobotPreferences.setCachedReads(false);
+  }
+
+  /** Verifies that reading a cached string value does not allocate. */
+  @Test
+  public void getStringDoesNotAllocate() {
+    stringValue.setValue("value");
+    awaitCached(stringValue);
+    assertNoAllocation("StringValue.getValue", () -> sink = stringValue.getValue());
+  }
+
+  /** Verifies that writing a cached string value does not allocate. */
+  @Test
+  public void setStringDoesNotAllocate() {
+    stringValue.setValue("value");
+    awaitCached(stringValue);
+    assertNoAllocation(
+        "StringValue.setValue", () -> stringValue.setValue((toggle = !toggle) ? "value" : "other"));
+  }
+
+  /** Verifies that reading a cached Boolean value does not allocate. */
+  @Test
+  public void getBooleanDoesNotAllocate() {
+    booleanValue.setValue(true);
+    awaitCached(booleanValue);
+    assertNoAllocation("BooleanValue.getValue", () -> toggle = booleanValue.getValue());
+  }
+
+  /** Verifies that writing a cached Boolean value does not allocate. */
+  @Test
+  public void setBooleanDoesNotAllocate() {
+    booleanValue.setValue(true);
+    awaitCached(booleanValue);
+    assertNoAllocation("BooleanValue.setValue", () -> booleanValue.setValue(toggle = !toggle));
+  }
+
+  /** Verifies that reading a cached floating-point value does not allocate. */
+  @Test
+  public void getDoubleDoesNotAllocate() {
+    doubleValue.setValue(2.0);
+    awaitCached(doubleValue);
+    assertNoAllocation("DoubleValue.getValue", () -> toggle = doubleValue.getValue() > 0);
+  }
+
+  /** Verifies that writing a cached floating-point value does not allocate. */
+  @Test
+  public void setDoubleDoesNotAllocate() {
+    doubleValue.setValue(2.0);
+    awaitCached(doubleValue);
+    assertNoAllocation(
+        "DoubleValue.setValue", () -> doubleValue.setValue((toggle = !toggle) ? 2.0 : 3.0));
+  }
+
+  /** Verifies that reading a cached enum value does not allocate. */
+  @Test
+  public void getEnumDoesNotAllocate() {
+    enumValue.setValue(Gear.HIGH);
+    awaitCached(enumValue);
+    assertNoAllocation("EnumValue.getValue", () -> sink = enumValue.getValue());
+  }
+
+  /** Verifies that writing a cached enum value does not allocate. */
+  @Test
+  public void setEnumDoesNotAllocate() {
+    enumValue.setValue(Gear.HIGH);
+    awaitCached(enumValue);
+    assertNoAllocation(
+        "EnumValue.setValue", () -> enumValue.setValue((toggle = !toggle) ? Gear.HIGH : Gear.LOW));
+  }
+
+  /**
+   * Waits until the listener has initialized the cached value.
+   *
+   * @param value The value to wait for.
+   */
+  private static void awaitCached(Value value) {
+    long deadline = System.nanoTime() + kCacheTimeoutNanos;
+
+    while (!value.isCached()) {
+      assertTrue(
+          System.nanoTime() < deadline, "Timed out waiting for " + value.getKey() + " to cache");
+      Thread.onSpinWait();
+    }
+  }
+
+  /**
+   * Asserts that an operation does not allocate once it has been warmed up.
+   *
+   * @param name The name of the operation.
+   * @param operation The operation.
+   */
+  private static void assertNoAllocation(String name, Runnable operation) {
+    for (int i = 0; i < kIterations; i++) {
+      operation.run();
+    }
+
+    long before = threadBean.getCurrentThreadAllocatedBytes();
+
+    for (int i = 0; i < kIterations; i++) {
+      operation.run();
+    }
+
+    long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+
+    assertEquals(0, allocated, name + " allocated " + allocated + " bytes");
+  }
+}